@@ -0,0 +1,59 @@
+package com.example.common.diagnostics;
+
+import java.util.Locale;
+
+/**
+ * JDBC work done on behalf of one HTTP request. Only touched by the request thread, so it needs
+ * no synchronization.
+ */
+public class RequestSqlStats {
+    private final long startNanos = System.nanoTime();
+    private final boolean countsRows;
+    private int statements;
+    private long dbNanos;
+    private long rows;
+
+    RequestSqlStats(boolean countsRows) {
+        this.countsRows = countsRows;
+    }
+
+    void addStatement(long elapsedNanos) {
+        statements++;
+        dbNanos += elapsedNanos;
+    }
+
+    void addRow() {
+        rows++;
+    }
+
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getDbNanos() {
+        return dbNanos;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    /** E.g. {@code 2 statements, 6 rows}, leaving the rows out when they are not counted. */
+    public String describe() {
+        return countsRows ? statements + " statements, " + rows + " rows" : statements + " statements";
+    }
+
+    /**
+     * {@code Server-Timing} value splitting the time spent so far into the database share and the
+     * whole handler, e.g. {@code db;dur=1.204;desc="2 statements, 6 rows", app;dur=3.870}. Taken
+     * just before the body is written, so the rest of the response time is serialization and transfer.
+     */
+    public String toServerTiming() {
+        return String.format(Locale.ROOT, "db;dur=%.3f;desc=\"%s\", app;dur=%.3f",
+                dbNanos / 1_000_000d, describe(), (System.nanoTime() - startNanos) / 1_000_000d);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.common.diagnostics;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Sets {@code Server-Timing} right before a response body is serialized, the last moment the
+ * header can still be sent. Declared as a bean by each service next to its {@link SqlDiagnostics}.
+ */
+@ControllerAdvice
+public class ServerTimingAdvice implements ResponseBodyAdvice<Object> {
+    private final SqlDiagnostics sqlDiagnostics;
+
+    public ServerTimingAdvice(SqlDiagnostics sqlDiagnostics) {
+        this.sqlDiagnostics = sqlDiagnostics;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return sqlDiagnostics.isEnabled();
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        RequestSqlStats stats = sqlDiagnostics.currentRequest();
+        if (stats != null) {
+            response.getHeaders().set(SqlDiagnosticsFilter.SERVER_TIMING, stats.toServerTiming());
+        }
+        return body;
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.common.diagnostics;
+
+import lombok.extern.log4j.Log4j2;
+import net.ttddyy.dsproxy.ConnectionInfo;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.logging.DefaultQueryLogEntryCreator;
+import net.ttddyy.dsproxy.proxy.ProxyConfig;
+import net.ttddyy.dsproxy.proxy.ResultSetProxyLogic;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Wraps the DataSource in a datasource-proxy that times every statement, adding it to the current
+ * request's {@link RequestSqlStats}. Statements slower than the slow-query threshold are logged
+ * with their bound parameters and the repository method that ran them, also outside of a request.
+ *
+ * Counting the rows read needs every ResultSet wrapped as well, which costs a reflective call on
+ * each getter of each row, so it is off unless the service asks for it. The wrapper only looks at
+ * {@code next()}; it does not go through datasource-proxy's method listeners.
+ *
+ * Not a component: each service declares it as a bean with its own properties, together with
+ * {@link SqlDiagnosticsFilter} and {@link ServerTimingAdvice}. The bean method has to be static,
+ * since this is a BeanPostProcessor.
+ */
+@Log4j2
+public class SqlDiagnostics implements BeanPostProcessor {
+    private static final String START_NANOS = "diagnostics.startNanos";
+
+    private static final ThreadLocal<RequestSqlStats> REQUEST_STATS = new ThreadLocal<>();
+    private static final ThreadLocal<String> REPOSITORY_METHOD = new ThreadLocal<>();
+
+    private final DefaultQueryLogEntryCreator logEntryCreator = new DefaultQueryLogEntryCreator();
+
+    private final boolean enabled;
+    private final Duration slowQueryThreshold;
+    private final boolean countRows;
+
+    public SqlDiagnostics(boolean enabled, Duration slowQueryThreshold, boolean countRows) {
+        this.enabled = enabled;
+        this.slowQueryThreshold = slowQueryThreshold;
+        this.countRows = countRows;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public RequestSqlStats beginRequest() {
+        RequestSqlStats stats = new RequestSqlStats(countRows);
+        REQUEST_STATS.set(stats);
+        return stats;
+    }
+
+    public RequestSqlStats currentRequest() {
+        return REQUEST_STATS.get();
+    }
+
+    public void endRequest() {
+        REQUEST_STATS.remove();
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        // the repository proxy is created when the factory bean initializes
+        if (enabled && bean instanceof RepositoryFactoryBeanSupport) {
+            ((RepositoryFactoryBeanSupport<?, ?, ?>) bean).addRepositoryFactoryCustomizer(factory ->
+                    factory.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) -> {
+                        String repository = repositoryInformation.getRepositoryInterface().getSimpleName();
+                        proxyFactory.addAdvice(repositoryMethodTracker(repository));
+                    }));
+        }
+        return bean;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (enabled && bean instanceof DataSource) {
+            ProxyDataSourceBuilder builder = ProxyDataSourceBuilder.create(beanName, (DataSource) bean)
+                    .listener(new StatementListener());
+            if (countRows) {
+                builder.proxyResultSet(RowCounter::new);
+            }
+            return builder.build();
+        }
+        return bean;
+    }
+
+    // remembers which repository method the statements on this thread belong to
+    private static MethodInterceptor repositoryMethodTracker(String repository) {
+        return invocation -> {
+            String outer = REPOSITORY_METHOD.get();
+            REPOSITORY_METHOD.set(repository + "." + invocation.getMethod().getName());
+            try {
+                return invocation.proceed();
+            } finally {
+                if (outer == null) {
+                    REPOSITORY_METHOD.remove();
+                } else {
+                    REPOSITORY_METHOD.set(outer);
+                }
+            }
+        };
+    }
+
+    private class StatementListener implements QueryExecutionListener {
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            execInfo.addCustomValue(START_NANOS, System.nanoTime());
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            long elapsedNanos = System.nanoTime() - execInfo.getCustomValue(START_NANOS, Long.class);
+            RequestSqlStats stats = REQUEST_STATS.get();
+            if (stats != null) {
+                stats.addStatement(elapsedNanos);
+            }
+            if (elapsedNanos >= slowQueryThreshold.toNanos()) {
+                String repositoryMethod = REPOSITORY_METHOD.get();
+                log.warn("Slow SQL took {} ms in {}: {}", elapsedNanos / 1_000_000,
+                        repositoryMethod == null ? "no repository method" : repositoryMethod,
+                        logEntryCreator.getLogEntry(execInfo, queryInfoList, false, false, false));
+            }
+        }
+    }
+
+    // passes every call straight to the result set and counts the rows next() moved onto
+    private static class RowCounter implements ResultSetProxyLogic {
+        private final ResultSet resultSet;
+
+        RowCounter(ResultSet resultSet, ConnectionInfo connectionInfo, ProxyConfig proxyConfig) {
+            this.resultSet = resultSet;
+        }
+
+        @Override
+        public Object invoke(Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            // ProxyJdbcObject, which the proxy also implements
+            if ("getTarget".equals(name)) {
+                return resultSet;
+            }
+            Object result;
+            try {
+                result = method.invoke(resultSet, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getTargetException();
+            }
+            if ("next".equals(name) && Boolean.TRUE.equals(result)) {
+                RequestSqlStats stats = REQUEST_STATS.get();
+                if (stats != null) {
+                    stats.addRow();
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.common.diagnostics;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Collects the {@link RequestSqlStats} of each request and logs them at debug level. Responses
+ * with a body get their {@code Server-Timing} header from {@link ServerTimingAdvice}; the others
+ * get it here if they are not committed yet. Declared as a bean by each service next to its
+ * {@link SqlDiagnostics}.
+ */
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Log4j2
+public class SqlDiagnosticsFilter extends OncePerRequestFilter {
+    public static final String SERVER_TIMING = "Server-Timing";
+
+    private final SqlDiagnostics sqlDiagnostics;
+
+    public SqlDiagnosticsFilter(SqlDiagnostics sqlDiagnostics) {
+        this.sqlDiagnostics = sqlDiagnostics;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !sqlDiagnostics.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestSqlStats stats = sqlDiagnostics.beginRequest();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            sqlDiagnostics.endRequest();
+            if (!response.isCommitted() && !response.containsHeader(SERVER_TIMING)) {
+                response.setHeader(SERVER_TIMING, stats.toServerTiming());
+            }
+            log.debug("{} {} ran {} in {} ms, {} ms in total", request.getMethod(), request.getRequestURI(),
+                    stats.describe(), stats.getDbNanos() / 1_000_000, (System.nanoTime() - stats.getStartNanos()) / 1_000_000);
+        }
+    }
+}
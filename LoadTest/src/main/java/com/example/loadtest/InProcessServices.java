@@ -0,0 +1,107 @@
+package com.example.loadtest;
+
+import com.example.orderservice.OrderServiceApplication;
+import com.example.productservice.ProductServiceApplication;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+
+/**
+ * ProductService and OrderService booted in this JVM on random ports, each on its own in-memory H2,
+ * with OrderService's Feign clients pointed at them through simple discovery instead of Eureka.
+ * Nothing outside the process is needed. {@code -D} system properties override the defaults below
+ * for both services.
+ */
+@Log4j2
+public class InProcessServices implements AutoCloseable {
+    private final PaymentStandIn paymentStandIn;
+    private final ConfigurableApplicationContext productService;
+    private final ConfigurableApplicationContext orderService;
+
+    private InProcessServices(PaymentStandIn paymentStandIn, ConfigurableApplicationContext productService,
+                              ConfigurableApplicationContext orderService) {
+        this.paymentStandIn = paymentStandIn;
+        this.productService = productService;
+        this.orderService = orderService;
+    }
+
+    public static InProcessServices start() throws IOException {
+        PaymentStandIn paymentStandIn = new PaymentStandIn();
+        ConfigurableApplicationContext productService = null;
+        try {
+            productService = new SpringApplicationBuilder(ProductServiceApplication.class)
+                    .logStartupInfo(false)
+                    .properties(commonProperties())
+                    .properties("spring.application.name=PRODUCT-SERVICE",
+                            "spring.datasource.url=jdbc:h2:mem:productdb;DB_CLOSE_DELAY=-1",
+                            "spring.jpa.properties.hibernate.jdbc.batch_size=500",
+                            "spring.jpa.properties.hibernate.order_inserts=true",
+                            // the second-level cache as ProductService's application.yml sets it up, regions from its application.conf
+                            "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+                            "spring.jpa.properties.hibernate.cache.use_query_cache=true",
+                            "spring.jpa.properties.hibernate.cache.region.factory_class=jcache",
+                            "spring.jpa.properties.hibernate.javax.cache.provider=com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider",
+                            "spring.jpa.properties.hibernate.javax.cache.missing_cache_strategy=fail",
+                            "spring.jpa.properties.hibernate.generate_statistics=true")
+                    .run();
+            String productBaseUrl = baseUrl(productService);
+            ConfigurableApplicationContext orderService = new SpringApplicationBuilder(OrderServiceApplication.class)
+                    .logStartupInfo(false)
+                    .properties(commonProperties())
+                    .properties("spring.application.name=ORDER-SERVICE",
+                            "spring.datasource.url=jdbc:h2:mem:orderdb;DB_CLOSE_DELAY=-1",
+                            // ORDER is a reserved word and the entity does not rename its table
+                            "spring.jpa.properties.hibernate.globally_quoted_identifiers=true",
+                            "spring.cloud.discovery.client.simple.instances[PRODUCT-SERVICE][0].uri=" + productBaseUrl,
+                            "spring.cloud.discovery.client.simple.instances[PAYMENT-SERVICE][0].uri=" + paymentStandIn.getBaseUrl())
+                    .run();
+            log.info("ProductService on {}, OrderService on {}, payment stand-in on {}",
+                    productBaseUrl, baseUrl(orderService), paymentStandIn.getBaseUrl());
+            return new InProcessServices(paymentStandIn, productService, orderService);
+        } catch (RuntimeException e) {
+            if (productService != null) {
+                productService.close();
+            }
+            paymentStandIn.close();
+            throw e;
+        }
+    }
+
+    public String getProductBaseUrl() {
+        return baseUrl(productService);
+    }
+
+    public String getOrderBaseUrl() {
+        return baseUrl(orderService);
+    }
+
+    @Override
+    public void close() {
+        orderService.close();
+        productService.close();
+        paymentStandIn.close();
+    }
+
+    private static String[] commonProperties() {
+        return new String[]{
+                "server.port=0",
+                "spring.main.banner-mode=off",
+                "spring.datasource.username=sa",
+                "spring.datasource.password=",
+                "spring.datasource.driverClassName=org.h2.Driver",
+                "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                "spring.jpa.open-in-view=true",
+                // per-request logging would dominate what is being measured
+                "logging.level.root=warn",
+                "logging.level.com.example.loadtest=info"
+        };
+    }
+
+    private static String baseUrl(ConfigurableApplicationContext context) {
+        return "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+}
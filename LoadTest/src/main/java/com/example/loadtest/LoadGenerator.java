@@ -0,0 +1,133 @@
+package com.example.loadtest;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closed-loop generator: {@code concurrency} virtual users each keep one request in flight and
+ * send the next only when the previous one completes. With a target rate every user also follows a
+ * fixed schedule, one request per {@link LoadProfile#intervalNanos()}; when the server falls behind,
+ * the next request goes out late and its corrected latency counts from the time it was due.
+ */
+@Log4j2
+public class LoadGenerator {
+    // how long to wait for in-flight requests after the measured phase ends
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(60);
+
+    private final HttpClient httpClient;
+    private final LoadTarget target;
+    private final LoadProfile profile;
+    private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+
+    public LoadGenerator(HttpClient httpClient, LoadTarget target, LoadProfile profile) {
+        if (profile.getConcurrency() < 1) {
+            throw new IllegalArgumentException("Concurrency must be at least 1");
+        }
+        this.httpClient = httpClient;
+        this.target = target;
+        this.profile = profile;
+        for (Operation operation : profile.getMix().getWeights().keySet()) {
+            stats.put(operation, new OperationStats());
+        }
+    }
+
+    public LoadResult run() throws InterruptedException {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "load-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            int concurrency = profile.getConcurrency();
+            long interval = profile.intervalNanos();
+            long start = System.nanoTime();
+            long measureFrom = start + profile.getWarmup().toNanos();
+            long end = measureFrom + profile.getDuration().toNanos();
+            CountDownLatch finished = new CountDownLatch(concurrency);
+            log.info("Running {} users at {} for {} after {} of warm-up, mix {}", concurrency,
+                    interval == 0 ? "full speed" : profile.getRate() + " requests/s", profile.getDuration(), profile.getWarmup(), profile.getMix());
+            for (int user = 0; user < concurrency; user++) {
+                // stagger the users so they do not all fire at the same instant
+                new VirtualUser(new SplittableRandom(profile.getSeed() + user), scheduler, interval, measureFrom, end, finished)
+                        .issue(start + interval * user / concurrency);
+            }
+            long timeout = end - System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+            if (!finished.await(timeout, TimeUnit.NANOSECONDS)) {
+                log.warn("{} users still had a request in flight after the run", finished.getCount());
+            }
+            return new LoadResult(profile, Collections.unmodifiableMap(stats), end - measureFrom);
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private final class VirtualUser {
+        private final SplittableRandom random;
+        private final ScheduledExecutorService scheduler;
+        private final long interval;
+        private final long measureFrom;
+        private final long end;
+        private final CountDownLatch finished;
+
+        private VirtualUser(SplittableRandom random, ScheduledExecutorService scheduler, long interval, long measureFrom,
+                            long end, CountDownLatch finished) {
+            this.random = random;
+            this.scheduler = scheduler;
+            this.interval = interval;
+            this.measureFrom = measureFrom;
+            this.end = end;
+            this.finished = finished;
+        }
+
+        private void issue(long intendedStart) {
+            if (intendedStart >= end) {
+                finished.countDown();
+                return;
+            }
+            long delay = intendedStart - System.nanoTime();
+            if (delay > 0) {
+                scheduler.schedule(() -> send(intendedStart), delay, TimeUnit.NANOSECONDS);
+            } else {
+                send(intendedStart);
+            }
+        }
+
+        private void send(long intendedStart) {
+            Operation operation = profile.getMix().pick(random);
+            HttpRequest request;
+            try {
+                request = operation.request(target, random);
+            } catch (RuntimeException e) {
+                log.error("Cannot build a {} request, stopping this user", operation, e);
+                finished.countDown();
+                return;
+            }
+            long sent = System.nanoTime();
+            httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                long completed = System.nanoTime();
+                if (intendedStart >= measureFrom) {
+                    OperationStats operationStats = stats.get(operation);
+                    if (error != null || response.statusCode() >= 400) {
+                        operationStats.recordError();
+                    } else {
+                        operationStats.recordSuccess(intendedStart, sent, completed);
+                    }
+                }
+                // without a target rate the next request is due as soon as this one is done
+                issue(interval == 0 ? completed : intendedStart + interval);
+            });
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.loadtest;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Duration;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class LoadProfile {
+    // virtual users, each with at most one request in flight
+    private int concurrency;
+    // target requests per second over all users; 0 sends the next request as soon as the last one completes
+    private double rate;
+    private Duration warmup;
+    private Duration duration;
+    private OperationMix mix;
+    // products seeded through the bulk endpoint before the run
+    private int products;
+    private long seed;
+
+    /**
+     * Reads {@code -Dload.*} system properties, e.g.
+     * {@code -Dload.concurrency=32 -Dload.rate=2000 -Dload.duration=PT60S -Dload.mix=read=70,search=15,write=10,order=5}.
+     */
+    public static LoadProfile fromSystemProperties() {
+        return LoadProfile.builder()
+                .concurrency(Integer.getInteger("load.concurrency", 16))
+                .rate(Double.parseDouble(System.getProperty("load.rate", "500")))
+                .warmup(Duration.parse(System.getProperty("load.warmup", "PT10S")))
+                .duration(Duration.parse(System.getProperty("load.duration", "PT30S")))
+                .mix(OperationMix.parse(System.getProperty("load.mix", "read=70,search=15,write=10,order=5")))
+                .products(Integer.getInteger("load.products", 10000))
+                .seed(Long.getLong("load.seed", 42L))
+                .build();
+    }
+
+    /**
+     * Gap between the intended start times of one user's requests, or 0 without a target rate.
+     */
+    public long intervalNanos() {
+        return rate <= 0 ? 0 : (long) (concurrency * 1_000_000_000d / rate);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Prints a per-operation latency table and writes the histograms as {@code .hgrm} percentile
+ * distributions (readable by HdrHistogram's plotter) plus a {@code summary.csv}.
+ */
+public final class LoadReport {
+    private static final double MICROS_PER_MILLI = 1000.0;
+    private static final String HEADER_FORMAT = "%-8s %10s %8s %10s %10s %10s %10s %10s %14s %14s%n";
+    private static final String ROW_FORMAT = "%-8s %10d %8d %10.1f %10.2f %10.2f %10.2f %10.2f %14.2f %14.2f%n";
+
+    private LoadReport() {
+    }
+
+    public static void print(LoadResult result, PrintStream out) {
+        LoadProfile profile = result.getProfile();
+        out.printf("%d users, %s, %s measured, mix %s%n", profile.getConcurrency(),
+                profile.getRate() <= 0 ? "full speed" : profile.getRate() + " requests/s target", profile.getDuration(), profile.getMix());
+        out.printf(HEADER_FORMAT, "op", "count", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "raw p99 ms", "raw p999 ms");
+        for (Map.Entry<Operation, OperationStats> entry : result.getStats().entrySet()) {
+            printRow(out, entry.getKey().name().toLowerCase(), entry.getValue(), result.getMeasuredNanos());
+        }
+        out.println("Latencies are coordinated-omission corrected; raw columns are measured from the actual send.");
+    }
+
+    public static void write(LoadResult result, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        try (PrintWriter summary = new PrintWriter(Files.newBufferedWriter(directory.resolve("summary.csv"), StandardCharsets.UTF_8))) {
+            summary.println("operation,count,errors,requests_per_second,p50_ms,p99_ms,p999_ms,max_ms,raw_p50_ms,raw_p99_ms,raw_p999_ms,raw_max_ms");
+            for (Map.Entry<Operation, OperationStats> entry : result.getStats().entrySet()) {
+                String operation = entry.getKey().name().toLowerCase();
+                OperationStats stats = entry.getValue();
+                Histogram corrected = stats.getCorrected();
+                Histogram uncorrected = stats.getUncorrected();
+                summary.println(String.format(Locale.ROOT, "%s,%d,%d,%.1f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f",
+                        operation, corrected.getTotalCount(), stats.getErrors(), throughput(corrected, result.getMeasuredNanos()),
+                        millis(corrected, 50), millis(corrected, 99), millis(corrected, 99.9), corrected.getMaxValue() / MICROS_PER_MILLI,
+                        millis(uncorrected, 50), millis(uncorrected, 99), millis(uncorrected, 99.9), uncorrected.getMaxValue() / MICROS_PER_MILLI));
+                writeDistribution(corrected, directory.resolve(operation + ".hgrm"));
+                writeDistribution(uncorrected, directory.resolve(operation + "-raw.hgrm"));
+            }
+        }
+    }
+
+    private static void printRow(PrintStream out, String operation, OperationStats stats, long measuredNanos) {
+        Histogram corrected = stats.getCorrected();
+        Histogram uncorrected = stats.getUncorrected();
+        out.printf(Locale.ROOT, ROW_FORMAT, operation, corrected.getTotalCount(), stats.getErrors(), throughput(corrected, measuredNanos),
+                millis(corrected, 50), millis(corrected, 99), millis(corrected, 99.9), corrected.getMaxValue() / MICROS_PER_MILLI,
+                millis(uncorrected, 99), millis(uncorrected, 99.9));
+    }
+
+    private static void writeDistribution(Histogram histogram, Path file) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file), false, StandardCharsets.UTF_8)) {
+            histogram.outputPercentileDistribution(out, MICROS_PER_MILLI);
+        }
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / MICROS_PER_MILLI;
+    }
+
+    private static double throughput(Histogram histogram, long measuredNanos) {
+        return histogram.getTotalCount() * 1_000_000_000d / measuredNanos;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.loadtest;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class LoadResult {
+    private LoadProfile profile;
+    private Map<Operation, OperationStats> stats;
+    // wall time of the measured phase, warm-up excluded
+    private long measuredNanos;
+}
@@ -0,0 +1,146 @@
+package com.example.loadtest;
+
+import com.example.orderservice.model.OrderRequest;
+import com.example.orderservice.model.PaymentMode;
+import com.example.productservice.constant.URIConstant;
+import com.example.productservice.model.ProductRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Where the requests go and what they carry: the base URLs of the running services, the ids of the
+ * seeded products and generators for realistic request bodies.
+ */
+public class LoadTarget {
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final int SEED_CHUNK_SIZE = 1000;
+    private static final String[] TYPES = {"phone", "laptop", "desktop", "tablet", "monitor", "headphones"};
+    private static final String[] BRANDS = {"Apple", "Samsung", "Google", "Dell", "HP", "Lenovo", "Asus", "Acer", "Sony", "LG", "Microsoft", "Xiaomi"};
+    private static final String[] MODELS = {"Pro", "Max", "Air", "Ultra", "Plus", "Lite", "Neo", "Edge", "Book", "Studio", "Gaming", "Slim"};
+    private static final PaymentMode[] PAYMENT_MODES = PaymentMode.values();
+
+    private final String productBaseUrl;
+    private final String orderBaseUrl;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private long[] productIds = new long[0];
+
+    public LoadTarget(String productBaseUrl, String orderBaseUrl) {
+        this.productBaseUrl = productBaseUrl;
+        this.orderBaseUrl = orderBaseUrl;
+    }
+
+    /**
+     * Inserts {@code count} generated products through the bulk endpoint and remembers the ids the
+     * service gave them, which reads and orders then pick from.
+     */
+    public void seed(HttpClient httpClient, int count, SplittableRandom random) throws IOException, InterruptedException {
+        for (int from = 0; from < count; from += SEED_CHUNK_SIZE) {
+            List<ProductRequest> chunk = new ArrayList<>();
+            for (int i = from; i < Math.min(count, from + SEED_CHUNK_SIZE); i++) {
+                chunk.add(newProduct(random));
+            }
+            expectSuccess(httpClient.send(post(productBaseUrl + URIConstant.POST_BULK, chunk), HttpResponse.BodyHandlers.ofString()));
+        }
+        HttpRequest getProducts = HttpRequest.newBuilder()
+                .uri(URI.create(productBaseUrl + URIConstant.GET))
+                .timeout(REQUEST_TIMEOUT)
+                .GET()
+                .build();
+        HttpResponse<String> response = expectSuccess(httpClient.send(getProducts, HttpResponse.BodyHandlers.ofString()));
+        JsonNode products = objectMapper.readTree(response.body());
+        productIds = new long[products.size()];
+        for (int i = 0; i < productIds.length; i++) {
+            productIds[i] = products.get(i).get("productId").asLong();
+        }
+        if (productIds.length == 0) {
+            throw new IllegalStateException("There are no products to read or order");
+        }
+    }
+
+    public HttpRequest getProduct(long productId) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(productBaseUrl + URIConstant.GET_BY_ID.replace("{id}", String.valueOf(productId))))
+                .timeout(REQUEST_TIMEOUT)
+                .GET()
+                .build();
+    }
+
+    public HttpRequest searchProducts(String productName) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(productBaseUrl + URIConstant.GET_BY_NAME + "?productName="
+                        + URLEncoder.encode(productName, StandardCharsets.UTF_8)))
+                .timeout(REQUEST_TIMEOUT)
+                .GET()
+                .build();
+    }
+
+    public HttpRequest addProduct(ProductRequest productRequest) {
+        return post(productBaseUrl + URIConstant.POST, productRequest);
+    }
+
+    public HttpRequest placeOrder(OrderRequest orderRequest) {
+        return post(orderBaseUrl + "/order/placeOrder", orderRequest);
+    }
+
+    public long randomProductId(SplittableRandom random) {
+        return productIds[random.nextInt(productIds.length)];
+    }
+
+    public String randomSearchTerm(SplittableRandom random) {
+        return BRANDS[random.nextInt(BRANDS.length)];
+    }
+
+    public ProductRequest newProduct(SplittableRandom random) {
+        String type = TYPES[random.nextInt(TYPES.length)];
+        String name = BRANDS[random.nextInt(BRANDS.length)] + " " + MODELS[random.nextInt(MODELS.length)] + " " + (random.nextInt(20) + 1);
+        // prices cluster at the cheap end and end in .99
+        double price = Math.floor(50 + Math.pow(random.nextDouble(), 2) * 2950) + 0.99;
+        return new ProductRequest(name, name + " " + type, type, price, random.nextInt(25));
+    }
+
+    public OrderRequest newOrder(SplittableRandom random) {
+        return OrderRequest.builder()
+                .productId(randomProductId(random))
+                .quantity(1)
+                .totalAmount(50 + random.nextInt(2950))
+                .paymentMode(PAYMENT_MODES[random.nextInt(PAYMENT_MODES.length)])
+                .build();
+    }
+
+    private static HttpResponse<String> expectSuccess(HttpResponse<String> response) {
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException(response.request().uri() + " answered " + response.statusCode() + ": " + response.body());
+        }
+        return response;
+    }
+
+    private HttpRequest post(String url, Object body) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(toJson(body)))
+                .build();
+    }
+
+    private String toJson(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot write request body " + body, e);
+        }
+    }
+}
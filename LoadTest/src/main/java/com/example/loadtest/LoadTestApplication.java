@@ -0,0 +1,38 @@
+package com.example.loadtest;
+
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.SplittableRandom;
+
+/**
+ * Boots the services in-process, seeds products, runs the {@link LoadProfile} from {@code -Dload.*}
+ * and writes the report to {@code load-results/<timestamp>}:
+ * {@code mvn -B compile exec:java -Dload.concurrency=32 -Dload.rate=2000 -Dload.duration=PT60S}.
+ */
+public class LoadTestApplication {
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    public static void main(String[] args) throws Exception {
+        LoadProfile profile = LoadProfile.fromSystemProperties();
+        Path results = Paths.get(System.getProperty("load.results", "load-results"), LocalDateTime.now().format(TIMESTAMP));
+        try (InProcessServices services = InProcessServices.start()) {
+            LoadResult result = run(services, profile);
+            LoadReport.print(result, System.out);
+            LoadReport.write(result, results);
+            System.out.println("Histograms written to " + results.toAbsolutePath());
+        }
+    }
+
+    public static LoadResult run(InProcessServices services, LoadProfile profile) throws Exception {
+        HttpClient httpClient = HttpClient.newBuilder()
+                // Tomcat does not speak h2c, so skip the upgrade attempt on every connection
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        LoadTarget target = new LoadTarget(services.getProductBaseUrl(), services.getOrderBaseUrl());
+        target.seed(httpClient, profile.getProducts(), new SplittableRandom(profile.getSeed()));
+        return new LoadGenerator(httpClient, target, profile).run();
+    }
+}
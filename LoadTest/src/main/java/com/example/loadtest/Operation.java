@@ -0,0 +1,37 @@
+package com.example.loadtest;
+
+import java.net.http.HttpRequest;
+import java.util.SplittableRandom;
+
+public enum Operation {
+    // GET /api/product/{id}
+    READ {
+        @Override
+        HttpRequest request(LoadTarget target, SplittableRandom random) {
+            return target.getProduct(target.randomProductId(random));
+        }
+    },
+    // GET /api/products?productName=
+    SEARCH {
+        @Override
+        HttpRequest request(LoadTarget target, SplittableRandom random) {
+            return target.searchProducts(target.randomSearchTerm(random));
+        }
+    },
+    // POST /api/product
+    WRITE {
+        @Override
+        HttpRequest request(LoadTarget target, SplittableRandom random) {
+            return target.addProduct(target.newProduct(random));
+        }
+    },
+    // POST /order/placeOrder
+    ORDER {
+        @Override
+        HttpRequest request(LoadTarget target, SplittableRandom random) {
+            return target.placeOrder(target.newOrder(random));
+        }
+    };
+
+    abstract HttpRequest request(LoadTarget target, SplittableRandom random);
+}
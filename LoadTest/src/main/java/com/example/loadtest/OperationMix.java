@@ -0,0 +1,71 @@
+package com.example.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Relative weights of the operations in a run, written as {@code read=70,search=15,write=10,order=5}.
+ */
+public class OperationMix {
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private final Map<Operation, Integer> weights;
+
+    public OperationMix(Map<Operation, Integer> weights) {
+        Map<Operation, Integer> positiveWeights = new EnumMap<>(Operation.class);
+        weights.forEach((operation, weight) -> {
+            if (weight < 0) {
+                throw new IllegalArgumentException("Weight of " + operation + " must not be negative");
+            }
+            if (weight > 0) {
+                positiveWeights.put(operation, weight);
+            }
+        });
+        if (positiveWeights.isEmpty()) {
+            throw new IllegalArgumentException("Operation mix must give at least one operation a weight");
+        }
+        this.weights = positiveWeights;
+        this.operations = positiveWeights.keySet().toArray(new Operation[0]);
+        this.cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += positiveWeights.get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    public static OperationMix parse(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected operation=weight but got '" + entry + "'");
+            }
+            weights.merge(Operation.valueOf(parts[0].trim().toUpperCase()), Integer.parseInt(parts[1].trim()), Integer::sum);
+        }
+        return new OperationMix(weights);
+    }
+
+    public Operation pick(SplittableRandom random) {
+        int ticket = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (ticket < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        throw new IllegalStateException("Ticket " + ticket + " is outside the mix");
+    }
+
+    public Map<Operation, Integer> getWeights() {
+        return weights;
+    }
+
+    @Override
+    public String toString() {
+        return weights.entrySet().stream()
+                .map(entry -> entry.getKey().name().toLowerCase() + "=" + entry.getValue())
+                .collect(Collectors.joining(","));
+    }
+}
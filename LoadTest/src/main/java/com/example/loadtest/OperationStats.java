@@ -0,0 +1,46 @@
+package com.example.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies of one operation in microseconds. {@code corrected} measures from when the request was
+ * due under the target rate, so a stalled server is charged for the requests it kept from being
+ * sent (coordinated omission); {@code uncorrected} measures from when it was actually sent.
+ */
+public class OperationStats {
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Histogram corrected = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private final Histogram uncorrected = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private final LongAdder errors = new LongAdder();
+
+    void recordSuccess(long intendedStartNanos, long sentNanos, long completedNanos) {
+        corrected.recordValue(toMicros(completedNanos - intendedStartNanos));
+        uncorrected.recordValue(toMicros(completedNanos - sentNanos));
+    }
+
+    void recordError() {
+        errors.increment();
+    }
+
+    public Histogram getCorrected() {
+        return corrected;
+    }
+
+    public Histogram getUncorrected() {
+        return uncorrected;
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    private static long toMicros(long nanos) {
+        return Math.min(HIGHEST_TRACKABLE_MICROS, Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos)));
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.loadtest;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Answers {@code POST /payment} with a new payment id, standing in for PaymentService, which has no
+ * endpoints yet, so OrderService's Feign client has something to call.
+ */
+public class PaymentStandIn implements AutoCloseable {
+    private final HttpServer server;
+    private final AtomicLong paymentIds = new AtomicLong();
+
+    public PaymentStandIn() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/payment", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            byte[] body = String.valueOf(paymentIds.incrementAndGet()).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    public String getBaseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
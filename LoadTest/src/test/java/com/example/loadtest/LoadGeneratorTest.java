@@ -0,0 +1,79 @@
+package com.example.loadtest;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LoadGeneratorTest {
+    private static InProcessServices services;
+
+    @BeforeAll
+    public static void startServices() throws Exception {
+        services = InProcessServices.start();
+    }
+
+    @AfterAll
+    public static void stopServices() {
+        services.close();
+    }
+
+    @Test
+    public void testRunMixAgainstInProcessServices(@TempDir Path results) throws Exception {
+        LoadProfile profile = LoadProfile.builder()
+                .concurrency(4)
+                .rate(100)
+                .warmup(Duration.ofSeconds(2))
+                .duration(Duration.ofSeconds(2))
+                .mix(OperationMix.parse("read=4,search=2,write=2,order=2"))
+                .products(50)
+                .seed(42L)
+                .build();
+
+        LoadResult result = LoadTestApplication.run(services, profile);
+
+        assertEquals(4, result.getStats().size());
+        for (Map.Entry<Operation, OperationStats> entry : result.getStats().entrySet()) {
+            OperationStats stats = entry.getValue();
+            assertTrue(stats.getCorrected().getTotalCount() > 0, entry.getKey() + " was never measured");
+            assertEquals(0, stats.getErrors(), entry.getKey() + " failed");
+            assertEquals(stats.getUncorrected().getTotalCount(), stats.getCorrected().getTotalCount());
+            // a request is never due after it was sent
+            assertTrue(stats.getCorrected().getMaxValue() >= stats.getUncorrected().getMaxValue());
+        }
+
+        LoadReport.write(result, results);
+        assertEquals(5, Files.readAllLines(results.resolve("summary.csv")).size());
+        assertTrue(Files.exists(results.resolve("read.hgrm")));
+        assertTrue(Files.exists(results.resolve("read-raw.hgrm")));
+    }
+
+    @Test
+    public void testOperationMix() {
+        OperationMix mix = OperationMix.parse("read=3, write=1, order=0");
+        assertEquals("read=3,write=1", mix.toString());
+
+        Map<Operation, Integer> picks = new EnumMap<>(Operation.class);
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 4000; i++) {
+            picks.merge(mix.pick(random), 1, Integer::sum);
+        }
+        assertEquals(2, picks.size());
+        assertTrue(picks.get(Operation.READ) > 2 * picks.get(Operation.WRITE));
+
+        assertThrows(IllegalArgumentException.class, () -> OperationMix.parse("read=0"));
+        assertThrows(IllegalArgumentException.class, () -> OperationMix.parse("read"));
+        assertThrows(IllegalArgumentException.class, () -> OperationMix.parse("browse=1"));
+    }
+}
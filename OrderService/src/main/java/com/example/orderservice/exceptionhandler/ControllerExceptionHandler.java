@@ -10,6 +10,8 @@ import com.example.orderservice.exception.InternalServerError500Exception;
 import com.example.orderservice.exception.NotFound404Exception;
 import com.example.orderservice.exception.ServiceUnavailable503Exception;
 import com.example.orderservice.exception.UnAuthorized401Exception;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -21,12 +23,19 @@ import java.util.Date;
 
 @ControllerAdvice
 public class ControllerExceptionHandler {
+    // one series per exception type and status, next to http.server.requests
+    private static final String HANDLED_EXCEPTIONS = "http.server.handled.exceptions";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     /*********************************************************
      *                   400 : BAD REQUEST                   *
      *********************************************************/
     @ResponseStatus(code = HttpStatus.BAD_REQUEST)
     @ExceptionHandler(BadRequest400Exception.class)
     public ResponseEntity<ErrorMessage> BadRequestException(BadRequest400Exception ex, WebRequest request) {
+        countHandled(ex, HttpStatus.BAD_REQUEST);
         ErrorMessage message = new ErrorMessage(
                 HttpStatus.BAD_REQUEST.value(),
                 new Date(),
@@ -42,6 +51,7 @@ public class ControllerExceptionHandler {
     @ResponseStatus(code = HttpStatus.UNAUTHORIZED)
     @ExceptionHandler(UnAuthorized401Exception.class)
     public ResponseEntity<ErrorMessage> UnAuthorizedException(UnAuthorized401Exception ex, WebRequest request) {
+        countHandled(ex, HttpStatus.UNAUTHORIZED);
         ErrorMessage message = new ErrorMessage(
                 HttpStatus.UNAUTHORIZED.value(),
                 new Date(),
@@ -58,6 +68,7 @@ public class ControllerExceptionHandler {
     @ResponseStatus(code = HttpStatus.FORBIDDEN)
     @ExceptionHandler(Forbidden403Exception.class)
     public ResponseEntity<ErrorMessage> ForbiddenException(Forbidden403Exception ex, WebRequest request) {
+        countHandled(ex, HttpStatus.FORBIDDEN);
         ErrorMessage message = new ErrorMessage(
                 HttpStatus.FORBIDDEN.value(),
                 new Date(),
@@ -73,6 +84,7 @@ public class ControllerExceptionHandler {
     @ResponseStatus(code = HttpStatus.NOT_FOUND)
     @ExceptionHandler(NotFound404Exception.class)
     public ResponseEntity<ErrorMessage> NotFoundException(NotFound404Exception ex, WebRequest request) {
+        countHandled(ex, HttpStatus.NOT_FOUND);
         ErrorMessage message = new ErrorMessage(
                 HttpStatus.NOT_FOUND.value(),
                 new Date(),
@@ -88,6 +100,7 @@ public class ControllerExceptionHandler {
     @ResponseStatus(code = HttpStatus.INTERNAL_SERVER_ERROR)
     @ExceptionHandler(InternalServerError500Exception.class)
     public ResponseEntity<ErrorMessage> InternalServerErrorException(InternalServerError500Exception ex, WebRequest request) {
+        countHandled(ex, HttpStatus.INTERNAL_SERVER_ERROR);
         ErrorMessage message = new ErrorMessage(
                 HttpStatus.INTERNAL_SERVER_ERROR.value(),
                 new Date(),
@@ -103,6 +116,7 @@ public class ControllerExceptionHandler {
     @ResponseStatus(code = HttpStatus.BAD_GATEWAY)
     @ExceptionHandler(BadGateway502Exception.class)
     public ResponseEntity<ErrorMessage> BadGatewayException(BadGateway502Exception ex, WebRequest request) {
+        countHandled(ex, HttpStatus.BAD_GATEWAY);
         ErrorMessage message = new ErrorMessage(
                 HttpStatus.BAD_GATEWAY.value(),
                 new Date(),
@@ -118,6 +132,7 @@ public class ControllerExceptionHandler {
     @ResponseStatus(code = HttpStatus.SERVICE_UNAVAILABLE)
     @ExceptionHandler(ServiceUnavailable503Exception.class)
     public ResponseEntity<ErrorMessage> ServiceUnavailableException(ServiceUnavailable503Exception ex, WebRequest request) {
+        countHandled(ex, HttpStatus.SERVICE_UNAVAILABLE);
         ErrorMessage message = new ErrorMessage(
                 HttpStatus.SERVICE_UNAVAILABLE.value(),
                 new Date(),
@@ -134,6 +149,7 @@ public class ControllerExceptionHandler {
     @ResponseStatus(code = HttpStatus.GATEWAY_TIMEOUT)
     @ExceptionHandler(GatewayTimeout504Exception.class)
     public ResponseEntity<ErrorMessage> GatewayTimeoutException(GatewayTimeout504Exception ex, WebRequest request) {
+        countHandled(ex, HttpStatus.GATEWAY_TIMEOUT);
         ErrorMessage message = new ErrorMessage(
                 HttpStatus.GATEWAY_TIMEOUT.value(),
                 new Date(),
@@ -143,4 +159,9 @@ public class ControllerExceptionHandler {
         return new ResponseEntity<>(message, HttpStatus.GATEWAY_TIMEOUT);
     }
 
+    private void countHandled(Exception ex, HttpStatus status) {
+        meterRegistry.counter(HANDLED_EXCEPTIONS,
+                "exception", ex.getClass().getSimpleName(),
+                "status", String.valueOf(status.value())).increment();
+    }
 }
@@ -0,0 +1,185 @@
+package com.example.productservice.cache;
+
+import com.example.productservice.entity.Product;
+import com.example.productservice.model.ProductResponse;
+import com.example.productservice.repository.ProductRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Micro-batches product reads by id. Ids requested by concurrent callers are queued for
+ * product.batch.window, or until product.batch.max-size ids are queued, and then read with a
+ * single loadAllById, which takes what it can from the second-level cache and reads the rest in
+ * one query; every caller waits for the batch its id went into. An id requested again while it
+ * is still queued shares the queued read. Missing ids load as null.
+ *
+ * A batch that fills up is read on the thread that filled it, otherwise on one of
+ * product.batch.threads dispatcher threads, so its statement is not counted in the waiting
+ * requests' Server-Timing. Batch sizes are recorded in product.batch.size.
+ */
+@Component
+@Log4j2
+public class ProductBatchLoader {
+    public static final String BATCH_SIZE_METRIC = "product.batch.size";
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${product.batch.enabled:true}")
+    private boolean enabled;
+
+    @Value("${product.batch.window:2ms}")
+    private Duration window;
+
+    @Value("${product.batch.max-size:100}")
+    private int maxSize;
+
+    @Value("${product.batch.threads:2}")
+    private int threads;
+
+    private final Object lock = new Object();
+
+    private Map<Long, CompletableFuture<ProductResponse>> pending = new LinkedHashMap<>();
+
+    private ScheduledFuture<?> timer;
+
+    private ScheduledThreadPoolExecutor dispatcher;
+
+    private DistributionSummary batchSizes;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger sequence = new AtomicInteger();
+        dispatcher = new ScheduledThreadPoolExecutor(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "product-batch-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        dispatcher.setRemoveOnCancelPolicy(true);
+        batchSizes = DistributionSummary.builder(BATCH_SIZE_METRIC).register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        dispatcher.shutdown();
+    }
+
+    /**
+     * Loads one product, or null when it does not exist.
+     */
+    public ProductResponse load(long productId) {
+        return loadAll(List.of(productId)).get(productId);
+    }
+
+    /**
+     * Loads the given products, keyed by id; ids that do not exist are left out.
+     */
+    public Map<Long, ProductResponse> loadAll(Collection<Long> productIds) {
+        if (!enabled) {
+            return fetch(productIds);
+        }
+        Map<Long, CompletableFuture<ProductResponse>> futures = new LinkedHashMap<>();
+        List<Map<Long, CompletableFuture<ProductResponse>>> full = new ArrayList<>();
+        synchronized (lock) {
+            for (Long productId : productIds) {
+                futures.computeIfAbsent(productId, id -> pending.computeIfAbsent(id, key -> new CompletableFuture<>()));
+                if (pending.size() >= maxSize) {
+                    full.add(drain());
+                } else if (timer == null && !pending.isEmpty()) {
+                    timer = dispatcher.schedule(this::flush, window.toNanos(), TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+        full.forEach(this::dispatch);
+
+        Map<Long, ProductResponse> products = new HashMap<>();
+        futures.forEach((productId, future) -> {
+            ProductResponse product = await(future);
+            if (product != null) {
+                products.put(productId, product);
+            }
+        });
+        return products;
+    }
+
+    private void flush() {
+        Map<Long, CompletableFuture<ProductResponse>> batch;
+        synchronized (lock) {
+            batch = drain();
+        }
+        dispatch(batch);
+    }
+
+    // callers hold the lock
+    private Map<Long, CompletableFuture<ProductResponse>> drain() {
+        if (timer != null) {
+            timer.cancel(false);
+            timer = null;
+        }
+        Map<Long, CompletableFuture<ProductResponse>> batch = pending;
+        pending = new LinkedHashMap<>();
+        return batch;
+    }
+
+    private void dispatch(Map<Long, CompletableFuture<ProductResponse>> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            Map<Long, ProductResponse> products = fetch(batch.keySet());
+            batch.forEach((productId, future) -> future.complete(products.get(productId)));
+        } catch (RuntimeException | Error e) {
+            log.warn("Loading a batch of {} products failed", batch.size(), e);
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    private Map<Long, ProductResponse> fetch(Collection<Long> productIds) {
+        if (enabled) {
+            batchSizes.record(productIds.size());
+        }
+        Map<Long, ProductResponse> products = new HashMap<>();
+        for (Product product : productRepository.loadAllById(productIds)) {
+            ProductResponse productResponse = new ProductResponse();
+            BeanUtils.copyProperties(product, productResponse);
+            products.put(productResponse.getProductId(), productResponse);
+        }
+        log.info("Loaded {} of {} products by id", products.size(), productIds.size());
+        return products;
+    }
+
+    private static ProductResponse await(CompletableFuture<ProductResponse> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw (Error) e.getCause();
+        }
+    }
+}
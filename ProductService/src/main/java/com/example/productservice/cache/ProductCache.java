@@ -0,0 +1,89 @@
+package com.example.productservice.cache;
+
+import com.example.productservice.index.ProductChangeListener;
+import com.example.productservice.model.CacheStatsResponse;
+import com.example.productservice.model.ProductResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded read-through cache of products keyed by product id.
+ * Entries are evicted by size and by age, so rows changed outside this service are
+ * served stale for at most {@code product.cache.expire-after-write}.
+ */
+@Component
+public class ProductCache implements ProductChangeListener {
+    private final Cache<Long, ProductResponse> cache;
+
+    public ProductCache(@Value("${product.cache.maximum-size:10000}") long maximumSize,
+                        @Value("${product.cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    public ProductResponse get(long productId, Function<Long, ProductResponse> loader) {
+        return cache.get(productId, loader);
+    }
+
+    /**
+     * Returns the cached products among the given ids and loads the rest with one call to
+     * the loader; ids the loader leaves out are missing from the result and are not cached.
+     */
+    public Map<Long, ProductResponse> getAll(Collection<Long> productIds,
+                                             Function<Collection<Long>, Map<Long, ProductResponse>> loader) {
+        return cache.getAll(productIds, missing -> {
+            List<Long> missingIds = new ArrayList<>();
+            missing.forEach(missingIds::add);
+            return loader.apply(missingIds);
+        });
+    }
+
+    @Override
+    public void onProductsSaved(List<ProductResponse> products) {
+        products.forEach(product -> cache.put(product.getProductId(), product));
+    }
+
+    @Override
+    public void onProductsDeleted(List<ProductResponse> products) {
+        cache.invalidateAll(products.stream().map(ProductResponse::getProductId).collect(Collectors.toList()));
+    }
+
+    /**
+     * Updates evict rather than overwrite: concurrent updates can notify out of order, and
+     * putting a value read by an earlier one would leave the entry stale until it expires.
+     */
+    @Override
+    public void onProductUpdated(ProductResponse before, ProductResponse after) {
+        cache.invalidate(after.getProductId());
+    }
+
+    @Override
+    public void onAllProductsDeleted() {
+        cache.invalidateAll();
+    }
+
+    public CacheStatsResponse stats() {
+        CacheStats stats = cache.stats();
+        return CacheStatsResponse.builder()
+                .size(cache.estimatedSize())
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictionCount(stats.evictionCount())
+                .build();
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.productservice.cache;
+
+import com.example.productservice.index.ProductChangeListener;
+import com.example.productservice.model.ProductResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight for identical concurrent reads. While a call for an operation and key is in
+ * flight, further callers with the same operation and key wait for it and share its result
+ * (or its exception) instead of running their own query.
+ *
+ * A flight only takes followers until product.coalescing.deadline after it started, and they
+ * wait no longer than that; past the deadline they run the call themselves, so one slow query
+ * cannot hold every caller of its key. Followers share the leader's result object and must not
+ * modify it.
+ *
+ * Every product write the service makes starts a new generation: the flights in progress stop
+ * taking followers, so a read that arrives after a write has returned never shares a result read
+ * before it. Their leaders and the followers already waiting still get that result. Calls are
+ * counted in product.coalescing.calls by operation and outcome: leader, collapsed or expired.
+ */
+@Component
+@Log4j2
+public class RequestCoalescer implements ProductChangeListener {
+    public static final String CALLS_METRIC = "product.coalescing.calls";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${product.coalescing.enabled:true}")
+    private boolean enabled;
+
+    @Value("${product.coalescing.deadline:2s}")
+    private Duration deadline;
+
+    private final ConcurrentMap<List<Object>, Flight> flights = new ConcurrentHashMap<>();
+
+    public <T> T execute(String operation, Object key, Supplier<T> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        List<Object> flightKey = List.of(operation, key);
+        Flight flight = new Flight(System.nanoTime() + deadline.toNanos());
+        Flight existing;
+        while ((existing = flights.putIfAbsent(flightKey, flight)) != null) {
+            if (!existing.isExpired()) {
+                return follow(operation, existing, call);
+            }
+            // too old to join; replace it so later callers coalesce on the new flight
+            flights.remove(flightKey, existing);
+        }
+
+        count(operation, "leader");
+        try {
+            T result = call.get();
+            flight.result.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(flightKey, flight);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T follow(String operation, Flight flight, Supplier<T> call) {
+        count(operation, "collapsed");
+        try {
+            return (T) flight.result.get(Math.max(0, flight.deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            log.debug("Coalesced {} call passed its deadline, running it again", operation);
+            count(operation, "expired");
+            return call.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw (Error) e.getCause();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return call.get();
+        }
+    }
+
+    @Override
+    public void onProductsSaved(List<ProductResponse> products) {
+        newGeneration();
+    }
+
+    @Override
+    public void onProductsDeleted(List<ProductResponse> products) {
+        newGeneration();
+    }
+
+    @Override
+    public void onProductUpdated(ProductResponse before, ProductResponse after) {
+        newGeneration();
+    }
+
+    @Override
+    public void onAllProductsDeleted() {
+        newGeneration();
+    }
+
+    // listeners are told after the commit, so any flight started before this point may have read the old rows;
+    // a leader only ever removes its own flight, so the next caller of the key starts afresh
+    private void newGeneration() {
+        flights.clear();
+    }
+
+    private void count(String operation, String outcome) {
+        meterRegistry.counter(CALLS_METRIC, "operation", operation, "outcome", outcome).increment();
+    }
+
+    private static final class Flight {
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private final long deadlineNanos;
+
+        private Flight(long deadlineNanos) {
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        private boolean isExpired() {
+            return System.nanoTime() - deadlineNanos >= 0;
+        }
+    }
+}
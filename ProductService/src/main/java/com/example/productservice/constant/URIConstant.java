@@ -3,29 +3,59 @@ package com.example.productservice.constant;
 public class URIConstant {
     //getProducts
     public static final String GET = "/api/product";
+    //streamProducts
+    public static final String GET_STREAM = "/api/product/stream";
+    //exportProducts
+    public static final String GET_EXPORT = "/api/products/export";
     //getProductById
     public static final String GET_BY_ID = "/api/product/{id}";
+    //getProductsByIds
+    public static final String GET_BY_IDS = "/api/product";
     //getProductByName
     public static final String GET_BY_NAME = "/api/products";
+    //getProductsAfterCursor
+    public static final String GET_BY_CURSOR = "/api/productByCursor";
     //getProductByPrice
     public static final String GET_PRODUCT_BY_PRICE = "/api/productByPriceBetween";
     //getProductByPrice
     public static final String GET_PRODUCT_BY_PRICE_LESS_THAN = "/api/productByPriceLessThan";
     public static final String GET_PRODUCT_BY_PRICE_GREATER_THAN = "/api/productByPriceGreaterThan";
+    //getProductsByPriceRange
+    public static final String GET_PRODUCT_BY_PRICE_RANGE = "/api/productByPriceRange";
+    //countProductsByPriceRange
+    public static final String COUNT_PRODUCT_BY_PRICE_RANGE = "/api/productByPriceRange/count";
     //addProduct
     public static final String POST = "/api/product";
     //addProducts
     public static final String POST_ALL = "/api/products";
+    //bulkInsertProducts
+    public static final String POST_BULK = "/api/products/bulk";
+    //importProducts
+    public static final String POST_IMPORT = "/api/products/import";
     //editProduct
-    public static final String PUT = "/api/product";
+    public static final String PUT = "/api/product/{productId}";
+    //patchProduct
+    public static final String PATCH = "/api/product/{productId}";
     //deleteProductById
     public static final String DELETE_BY_ID = "/api/product/{id}";
     //deleteListProducts
     public static final String DELETE_LIST = "/api/productByIds";
     //deleteAllProducts
     public static final String DELETE_ALL = "/api/products";
+    //reduceQuantity, called by OrderService through Feign (PRODUCT-SERVICE/product)
+    public static final String REDUCE_QUANTITY = "/product/reduceQuantity/{id}";
+    //getDeleteAllProductsStatus
+    public static final String DELETE_ALL_STATUS = "/api/products/wipe/status";
     //checkProductById
     public static final String CHECK_BY_ID = "/api/product/{id}";
     //getProductByName
     public static final String CHECK_BY_NAME = "/api/product";
+    //getProductCacheStats
+    public static final String GET_CACHE_STATS = "/api/product/cache/stats";
+    //getProductCacheRegionStats
+    public static final String GET_CACHE_REGION_STATS = "/api/product/cache/regions";
+    //countProducts
+    public static final String COUNT = "/api/products/count";
+    //getInventoryValuation
+    public static final String GET_VALUATION = "/api/product/valuation";
 }
@@ -3,23 +3,51 @@ package com.example.productservice.controller;
 import com.example.productservice.constant.URIConstant;
 import com.example.productservice.entity.Product;
 import com.example.productservice.exception.BadRequest400Exception;
+import com.example.productservice.importer.ProductFeedReader;
+import com.example.productservice.model.BulkDeleteResponse;
+import com.example.productservice.model.BulkInsertResponse;
+import com.example.productservice.model.CacheRegionStatsResponse;
+import com.example.productservice.model.CacheStatsResponse;
+import com.example.productservice.model.InventoryValuationResponse;
+import com.example.productservice.model.ProductCursorPage;
+import com.example.productservice.model.ProductImportResponse;
+import com.example.productservice.model.ProductPatchRequest;
 import com.example.productservice.model.ProductRequest;
 import com.example.productservice.model.ProductResponse;
+import com.example.productservice.model.WipeStatusResponse;
 import com.example.productservice.service.ProductService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @Log4j2
@@ -27,18 +55,134 @@ public class ProductController {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${product.stream.fetch-size:500}")
+    private int streamFetchSize;
+
+    @Value("${product.batch.max-ids:1000}")
+    private int maxIds;
+
+    private static final CsvMapper CSV_MAPPER = new CsvMapper();
+
+    private static final CsvSchema EXPORT_CSV_SCHEMA = CsvSchema.builder()
+            .addColumn("productId")
+            .addColumn("productName")
+            .addColumn("productDescription")
+            .addColumn("productType")
+            .addColumn("price")
+            .addColumn("quantity")
+            .setUseHeader(true)
+            .build();
+
     @GetMapping(URIConstant.GET)
     public ResponseEntity<List<ProductResponse>> getProducts() {
         return new ResponseEntity<>(productService.getProducts(), HttpStatus.OK);
     }
 
+    /**
+     * Streams the whole catalog as a JSON array. Rows are read in productId (keyset) order,
+     * {@code streamFetchSize} at a time, and written to the response as they arrive,
+     * so memory stays flat however large the catalog is.
+     */
+    @GetMapping(value = URIConstant.GET_STREAM, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamProducts() {
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)
+                    .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false)) {
+                generator.writeStartArray();
+                long lastProductId = 0;
+                List<ProductResponse> chunk;
+                do {
+                    chunk = productService.getProductsAfter(lastProductId, streamFetchSize);
+                    for (ProductResponse product : chunk) {
+                        generator.writeObject(product);
+                        lastProductId = product.getProductId();
+                    }
+                    generator.flush();
+                } while (chunk.size() == streamFetchSize);
+                generator.writeEndArray();
+            }
+        };
+        return new ResponseEntity<>(body, HttpStatus.OK);
+    }
+
+    /**
+     * Exports the whole catalog as NDJSON (one ProductResponse per line) or as CSV with a header row,
+     * gzip-compressed when the client sends Accept-Encoding: gzip. Rows come from one forward-only
+     * cursor and go straight to the response, so heap use does not grow with the table.
+     */
+    @GetMapping(URIConstant.GET_EXPORT)
+    public ResponseEntity<StreamingResponseBody> exportProducts(@RequestParam(defaultValue = "ndjson") String format,
+                                                                @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if(!csv && !"ndjson".equalsIgnoreCase(format)) {
+            log.warn("Export format {} is invalid", format);
+            throw new BadRequest400Exception("Export format is invalid.");
+        }
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+
+        StreamingResponseBody body = outputStream -> {
+            GZIPOutputStream gzipStream = gzip ? new GZIPOutputStream(outputStream, 64 * 1024) : null;
+            ObjectWriter writer = csv
+                    ? CSV_MAPPER.writerFor(ProductResponse.class).with(EXPORT_CSV_SCHEMA)
+                    : objectMapper.writerFor(ProductResponse.class).withRootValueSeparator("\n");
+            try (JsonGenerator generator = writer.createGenerator(gzip ? gzipStream : outputStream)
+                    .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+                 SequenceWriter rows = writer.writeValues(generator)) {
+                productService.exportProducts(streamFetchSize, product -> {
+                    try {
+                        rows.write(product);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                if (!csv) {
+                    generator.writeRaw('\n');
+                }
+            }
+            if (gzip) {
+                gzipStream.finish();
+            }
+        };
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(csv ? MediaType.parseMediaType(ProductFeedReader.TEXT_CSV_VALUE) : MediaType.APPLICATION_NDJSON);
+        headers.setContentDisposition(ContentDisposition.attachment().filename(csv ? "products.csv" : "products.ndjson").build());
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
     @GetMapping(URIConstant.GET_BY_ID)
     public ResponseEntity<ProductResponse> getProductById(@PathVariable long id) {
         if(id < 0) {
             log.warn("Product Id: {} is invalid", id);
             throw new BadRequest400Exception("Product data is invalid.");
         }
-        return new ResponseEntity<>(productService.getProductById(id), HttpStatus.OK);
+        ProductResponse productResponse = productService.getProductById(id);
+        return ResponseEntity.ok().eTag(String.valueOf(productResponse.getVersion())).body(productResponse);
+    }
+
+    /**
+     * Returns the products with the given ids in the order they were asked for. Ids that do not
+     * exist are left out, and ids missing from the cache are read in one batch. At most
+     * product.batch.max-ids ids can be asked for at once.
+     */
+    @GetMapping(value = URIConstant.GET_BY_IDS, params = "ids")
+    public ResponseEntity<List<ProductResponse>> getProductsByIds(@RequestParam List<Long> ids) {
+        if(ids.isEmpty() || ids.stream().anyMatch(id -> id == null || id < 0)) {
+            log.warn("Product Ids: {} are invalid", ids);
+            throw new BadRequest400Exception("Product data is invalid.");
+        }
+        if(ids.size() > maxIds) {
+            log.warn("{} product ids are more than the limit of {}", ids.size(), maxIds);
+            throw new BadRequest400Exception("Too many product ids.");
+        }
+        return new ResponseEntity<>(productService.getProductsByIds(ids), HttpStatus.OK);
     }
 
     @GetMapping(URIConstant.GET_BY_NAME)
@@ -49,6 +193,18 @@ public class ProductController {
         return new ResponseEntity<>(productService.getProductsByName(productName), HttpStatus.OK);
     }
 
+    @GetMapping(URIConstant.GET_BY_CURSOR)
+    public ResponseEntity<ProductCursorPage> getProductsAfterCursor(@RequestParam(defaultValue = "productId") String fieldName,
+                                                                    @RequestParam(defaultValue = "asc") String sortDirection,
+                                                                    @RequestParam(required = false) String after,
+                                                                    @RequestParam(defaultValue = "20") int limit) {
+        if(limit < 1 || limit > 1000) {
+            log.warn("Page limit: {} is invalid", limit);
+            throw new BadRequest400Exception("Page limit is invalid.");
+        }
+        return new ResponseEntity<>(productService.getProductsAfterCursor(fieldName, sortDirection, after, limit), HttpStatus.OK);
+    }
+
     @GetMapping(URIConstant.GET_PRODUCT_BY_PRICE)
     public ResponseEntity<List<ProductResponse>> getProductsByPriceBetween(@RequestParam double minPrice, @RequestParam double maxPrice) {
         if(minPrice < 0 || maxPrice < 0 || (minPrice > maxPrice)) {
@@ -73,15 +229,35 @@ public class ProductController {
         return new ResponseEntity<>(productService.getProductsByPriceGreaterThan(price), HttpStatus.OK);
     }
 
+    @GetMapping(URIConstant.GET_PRODUCT_BY_PRICE_RANGE)
+    public ResponseEntity<ProductCursorPage> getProductsByPriceRange(@RequestParam(defaultValue = "0") double minPrice,
+                                                                     @RequestParam(required = false) Double maxPrice,
+                                                                     @RequestParam(required = false) String after,
+                                                                     @RequestParam(defaultValue = "20") int limit) {
+        double max = maxPrice == null ? Double.MAX_VALUE : maxPrice;
+        if(minPrice < 0 || max < 0 || (minPrice > max)) {
+            throw new BadRequest400Exception("Product Price is invalid.");
+        }
+        if(limit < 1 || limit > 1000) {
+            log.warn("Page limit: {} is invalid", limit);
+            throw new BadRequest400Exception("Page limit is invalid.");
+        }
+        return new ResponseEntity<>(productService.getProductsByPriceRange(minPrice, max, after, limit), HttpStatus.OK);
+    }
+
+    @GetMapping(URIConstant.COUNT_PRODUCT_BY_PRICE_RANGE)
+    public ResponseEntity<Long> countProductsByPriceRange(@RequestParam(defaultValue = "0") double minPrice,
+                                                          @RequestParam(required = false) Double maxPrice) {
+        double max = maxPrice == null ? Double.MAX_VALUE : maxPrice;
+        if(minPrice < 0 || max < 0 || (minPrice > max)) {
+            throw new BadRequest400Exception("Product Price is invalid.");
+        }
+        return new ResponseEntity<>(productService.countProductsByPriceRange(minPrice, max), HttpStatus.OK);
+    }
+
     @PostMapping(URIConstant.POST)
     public ResponseEntity<Long> addProduct(@RequestBody ProductRequest productRequest) {
-        if(productRequest == null
-                || productRequest.getName() == null
-                || productRequest.getName().length() == 0
-                || productRequest.getType() == null
-                || productRequest.getType().length() == 0
-                || productRequest.getPrice() < 0
-                || productRequest.getQuantity() < 0) {
+        if(!ProductRequest.isValid(productRequest)) {
             log.warn("Product {} is invalid", productRequest);
             throw new BadRequest400Exception("Product data is invalid.");
         }
@@ -111,16 +287,56 @@ public class ProductController {
         return new ResponseEntity<>(productList, HttpStatus.CREATED);
     }
 
+    @PostMapping(URIConstant.POST_BULK)
+    public ResponseEntity<BulkInsertResponse> bulkInsertProducts(@RequestBody List<ProductRequest> products) {
+        if(products == null || products.isEmpty()) {
+            log.warn("List product is empty");
+            throw new BadRequest400Exception("List product is empty.");
+        }
+        for (ProductRequest productRequest : products) {
+            if(!ProductRequest.isValid(productRequest)) {
+                log.warn("Product {} is invalid", productRequest);
+                throw new BadRequest400Exception("Product data is invalid.");
+            }
+        }
+        return new ResponseEntity<>(productService.bulkInsertProducts(products), HttpStatus.CREATED);
+    }
+
+    /**
+     * Imports a feed sent as NDJSON or CSV (see {@link ProductFeedReader}) without holding it in memory:
+     * rows are parsed as they arrive and committed in product.bulk.chunk-size chunks, and the request
+     * body is only read as fast as the chunks commit. The response is NDJSON too, one
+     * ProductImportProgress line per committed chunk followed by the ProductImportResponse summary.
+     */
+    @PostMapping(value = URIConstant.POST_IMPORT,
+            consumes = {MediaType.APPLICATION_NDJSON_VALUE, ProductFeedReader.TEXT_CSV_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> importProducts(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                                InputStream body) {
+        MediaType mediaType = MediaType.parseMediaType(contentType);
+        StreamingResponseBody response = outputStream -> {
+            try (ProductFeedReader feed = ProductFeedReader.open(mediaType, body, objectMapper);
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)
+                         .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false)) {
+                generator.setRootValueSeparator(new SerializedString("\n"));
+                ProductImportResponse summary = productService.importProducts(feed, progress -> {
+                    try {
+                        generator.writeObject(progress);
+                        generator.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeObject(summary);
+                generator.writeRaw('\n');
+            }
+        };
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
     @PutMapping(URIConstant.PUT)
     public ResponseEntity<ProductResponse> editProduct(@RequestBody ProductRequest productRequest, @PathVariable long productId) {
-        if(productRequest == null
-                || productId < 0
-                || productRequest.getName() == null
-                || productRequest.getName().length() == 0
-                || productRequest.getType() == null
-                || productRequest.getType().length() == 0
-                || productRequest.getPrice() < 0
-                || productRequest.getQuantity() < 0) {
+        if(productId < 0 || !ProductRequest.isValid(productRequest)) {
             log.warn("Product {} is invalid", productRequest);
             throw new BadRequest400Exception("Product data is invalid.");
         }
@@ -128,6 +344,40 @@ public class ProductController {
         return new ResponseEntity<>(productService.editProduct(productRequest, productId), HttpStatus.OK);
     }
 
+    /**
+     * Partial update. The If-Match header must carry the ETag from GET /api/product/{id};
+     * a product changed since then answers 409 and the client should re-read it.
+     */
+    @PatchMapping(URIConstant.PATCH)
+    public ResponseEntity<ProductResponse> patchProduct(@RequestBody ProductPatchRequest patch, @PathVariable long productId,
+                                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if(patch == null
+                || productId < 0
+                || (patch.getName() == null && patch.getDescription() == null && patch.getType() == null
+                        && patch.getPrice() == null && patch.getQuantity() == null)
+                || (patch.getName() != null && patch.getName().length() == 0)
+                || (patch.getType() != null && patch.getType().length() == 0)
+                || (patch.getPrice() != null && patch.getPrice() < 0)
+                || (patch.getQuantity() != null && patch.getQuantity() < 0)) {
+            log.warn("Product patch {} is invalid", patch);
+            throw new BadRequest400Exception("Product data is invalid.");
+        }
+        long expectedVersion;
+        try {
+            if(ifMatch == null) {
+                throw new NumberFormatException("If-Match is missing");
+            }
+            // accepts 3, "3" and W/"3"
+            expectedVersion = Long.parseLong(ifMatch.replaceFirst("^W/", "").replace("\"", "").trim());
+        } catch (NumberFormatException ex) {
+            log.warn("If-Match: {} is invalid", ifMatch);
+            throw new BadRequest400Exception("If-Match header with the product version is required.");
+        }
+
+        ProductResponse productResponse = productService.patchProduct(productId, expectedVersion, patch);
+        return ResponseEntity.ok().eTag(String.valueOf(productResponse.getVersion())).body(productResponse);
+    }
+
     @DeleteMapping(URIConstant.DELETE_BY_ID)
     public ResponseEntity<String> deleteProductById(@PathVariable long id) {
         if(id < 0) {
@@ -138,8 +388,8 @@ public class ProductController {
     }
 
     @DeleteMapping(URIConstant.DELETE_LIST)
-    public ResponseEntity<String> deleteListProducts(@RequestBody List<Long> ids) {
-        if(ids.size() < 1) {
+    public ResponseEntity<BulkDeleteResponse> deleteListProducts(@RequestBody long[] ids) {
+        if(ids == null || ids.length < 1) {
             log.warn("List product id is invalid");
             throw new BadRequest400Exception("List product id is invalid.");
         }
@@ -147,8 +397,35 @@ public class ProductController {
     }
 
     @DeleteMapping(URIConstant.DELETE_ALL)
-    public ResponseEntity<String> deleteAllProducts() {
-        return new ResponseEntity<>(productService.deleteAllProducts(), HttpStatus.OK);
+    public ResponseEntity<WipeStatusResponse> deleteAllProducts() {
+        WipeStatusResponse status = productService.deleteAllProducts();
+        // large tables are cleared in the background; progress is at DELETE_ALL_STATUS
+        return new ResponseEntity<>(status, "DONE".equals(status.getState()) ? HttpStatus.OK : HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping(URIConstant.DELETE_ALL_STATUS)
+    public ResponseEntity<WipeStatusResponse> getDeleteAllProductsStatus() {
+        return new ResponseEntity<>(productService.getDeleteAllProductsStatus(), HttpStatus.OK);
+    }
+
+    @GetMapping(URIConstant.GET_CACHE_STATS)
+    public ResponseEntity<CacheStatsResponse> getProductCacheStats() {
+        return new ResponseEntity<>(productService.getProductCacheStats(), HttpStatus.OK);
+    }
+
+    @GetMapping(URIConstant.GET_CACHE_REGION_STATS)
+    public ResponseEntity<List<CacheRegionStatsResponse>> getProductCacheRegionStats() {
+        return new ResponseEntity<>(productService.getProductCacheRegionStats(), HttpStatus.OK);
+    }
+
+    @GetMapping(URIConstant.COUNT)
+    public ResponseEntity<Long> countProducts() {
+        return new ResponseEntity<>(productService.countProducts(), HttpStatus.OK);
+    }
+
+    @GetMapping(URIConstant.GET_VALUATION)
+    public ResponseEntity<InventoryValuationResponse> getInventoryValuation() {
+        return new ResponseEntity<>(productService.getInventoryValuation(), HttpStatus.OK);
     }
 
 //    @GetMapping(URIConstant.CHECK_BY_ID)
@@ -169,9 +446,13 @@ public class ProductController {
 //        return new ResponseEntity<>(productService.checkProductByProductName(productName), HttpStatus.OK);
 //    }
 
-//    @PutMapping("/reduceQuantity/{id}")
-//    public ResponseEntity<Void> reduceQuantity(@PathVariable("id") long productId, @RequestParam long quantity) {
-//        productService.reduceQuantity(productId,quantity);
-//        return new ResponseEntity<>(HttpStatus.OK);
-//    }
+    @PutMapping(URIConstant.REDUCE_QUANTITY)
+    public ResponseEntity<Void> reduceQuantity(@PathVariable("id") long productId, @RequestParam long quantity) {
+        if(productId < 0 || quantity < 1) {
+            log.warn("Product Id: {} or quantity: {} is invalid", productId, quantity);
+            throw new BadRequest400Exception("Product data is invalid.");
+        }
+        productService.reduceQuantity(productId, quantity);
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
 }
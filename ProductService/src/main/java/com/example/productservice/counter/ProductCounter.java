@@ -0,0 +1,131 @@
+package com.example.productservice.counter;
+
+import com.example.productservice.index.ProductChangeListener;
+import com.example.productservice.model.ProductResponse;
+import com.example.productservice.reconcile.ProductReconciler;
+import com.example.productservice.repository.ProductRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Running COUNT(*) of the PRODUCT table.
+ *
+ * Inserts and deletes made through ProductServiceImpl adjust the count here, so reading it
+ * costs the same at any table size. Rows added or removed outside this service are picked up
+ * by {@link #reconcile()}, which re-counts on a fixed delay and adopts the table's figure when
+ * the two disagree. The first count goes through the same {@link ProductReconciler} round, so a
+ * write that commits while the table is counted is not counted again when it notifies.
+ */
+@Component
+@Log4j2
+public class ProductCounter implements ProductChangeListener {
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductReconciler productReconciler;
+
+    @Value("${product.counter.enabled:false}")
+    private boolean enabled;
+
+    private volatile long count;
+    private volatile boolean loaded;
+    // serializes loads without holding the monitor, which writers need while a load waits on them
+    private final Object loadLock = new Object();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long get() {
+        if (!loaded) {
+            load();
+        }
+        return count;
+    }
+
+    @Override
+    public synchronized void onProductsSaved(List<ProductResponse> products) {
+        if (!enabled) {
+            return;
+        }
+        add(products.size());
+    }
+
+    @Override
+    public synchronized void onProductsDeleted(List<ProductResponse> products) {
+        if (!enabled) {
+            return;
+        }
+        add(-products.size());
+    }
+
+    @Override
+    public void onProductUpdated(ProductResponse before, ProductResponse after) {
+        // an update never changes the number of rows
+    }
+
+    @Override
+    public synchronized void onAllProductsDeleted() {
+        if (!enabled) {
+            return;
+        }
+        // recounted on the next read, which also takes in rows that survived a chunked wipe
+        count = 0;
+        loaded = false;
+        productReconciler.discard(this);
+    }
+
+    /**
+     * Compares the running count against COUNT(*) and adopts the latter when they differ.
+     * Writes that commit during the count are added on top, see {@link ProductReconciler}.
+     */
+    @Scheduled(initialDelayString = "${product.counter.reconcile-interval:PT5M}",
+            fixedDelayString = "${product.counter.reconcile-interval:PT5M}")
+    public void reconcile() {
+        synchronized (this) {
+            if (!enabled || !loaded) {
+                return;
+            }
+        }
+        productReconciler.reconcile("Product count", this, productRepository::count, Long::sum, counted -> {
+            if (counted != count) {
+                log.warn("Product count drifted by {} (running {}, counted {}), resetting", counted - count, count, counted);
+                count = counted;
+            }
+        });
+    }
+
+    private void load() {
+        synchronized (loadLock) {
+            if (loaded) {
+                return;
+            }
+            boolean adopted = productReconciler.reconcile("Product count", this, productRepository::count, Long::sum, counted -> {
+                count = counted;
+                loaded = true;
+            });
+            if (!adopted) {
+                synchronized (this) {
+                    count = productRepository.count();
+                    loaded = true;
+                }
+                log.warn("Product count loaded without a reconcile round, it may be off until the next one");
+            }
+            log.info("Product count loaded: {}", count);
+        }
+    }
+
+    // recorded even before the first count, which may already include the write
+    private void add(long delta) {
+        productReconciler.record(this, delta);
+        if (loaded) {
+            count += delta;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.productservice.diagnostics;
+
+import com.example.common.diagnostics.ServerTimingAdvice;
+import com.example.common.diagnostics.SqlDiagnostics;
+import com.example.common.diagnostics.SqlDiagnosticsFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Per-request SQL diagnostics from the Common module, configured under product.diagnostics.
+ * Row counts wrap every ResultSet, so they are only collected with product.diagnostics.count-rows.
+ */
+@Configuration
+public class DiagnosticsConfig {
+    // static: a BeanPostProcessor has to exist before this configuration's own beans
+    @Bean
+    public static SqlDiagnostics sqlDiagnostics(@Value("${product.diagnostics.enabled:true}") boolean enabled,
+                                                @Value("${product.diagnostics.slow-query-threshold:200ms}") Duration slowQueryThreshold,
+                                                @Value("${product.diagnostics.count-rows:false}") boolean countRows) {
+        return new SqlDiagnostics(enabled, slowQueryThreshold, countRows);
+    }
+
+    @Bean
+    public SqlDiagnosticsFilter sqlDiagnosticsFilter(SqlDiagnostics sqlDiagnostics) {
+        return new SqlDiagnosticsFilter(sqlDiagnostics);
+    }
+
+    @Bean
+    public ServerTimingAdvice serverTimingAdvice(SqlDiagnostics sqlDiagnostics) {
+        return new ServerTimingAdvice(sqlDiagnostics);
+    }
+}
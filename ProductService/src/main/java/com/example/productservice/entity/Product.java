@@ -4,26 +4,58 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.Table;
+import javax.persistence.Version;
+import java.util.Locale;
 
 
 @Data
 @Entity
+@Table(indexes = @Index(name = "IDX_PRODUCT_NAME_NORMALIZED", columnList = "PRODUCT_NAME_NORMALIZED"))
+@DynamicUpdate
+// read-mostly, so rows are kept in the second-level cache; regions are sized in application.conf
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Product.CACHE_REGION)
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class Product {
+    public static final String CACHE_REGION = "product";
+    // results of the cacheable product queries, invalidated whenever the PRODUCT table changes
+    public static final String QUERY_CACHE_REGION = "product-queries";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    // pooled-lo reserves increment_size ids per round-trip to hibernate_sequence, which also
+    // lets Hibernate batch the INSERTs; ids already handed out by the old increment-1 setup stay below it
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_id_generator")
+    @GenericGenerator(name = "product_id_generator", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+            parameters = {
+                    @Parameter(name = "sequence_name", value = "hibernate_sequence"),
+                    @Parameter(name = "increment_size", value = "50"),
+                    @Parameter(name = "optimizer", value = "pooled-lo")
+            })
     private long productId;
 
     @Column(name = "PRODUCT_NAME")
     private String productName;
+    // lower-cased productName so name lookups can use an index instead of LOWER(PRODUCT_NAME)
+    @Column(name = "PRODUCT_NAME_NORMALIZED")
+    private String productNameNormalized;
     @Column(name = "PRODUCT_DESCRIPTION")
     private String productDescription;
     @Column(name = "PRODUCT_TYPE")
@@ -32,6 +64,10 @@ public class Product {
     private double price;
     @Column(name = "QUANTITY")
     private long quantity;
+    // existing rows and rows inserted without it start at 0
+    @Version
+    @Column(name = "VERSION", nullable = false, columnDefinition = "bigint default 0")
+    private long version;
 
     public Product(String productName, String productDescription, String productType, double price, long quantity) {
         this.productName = productName;
@@ -40,4 +76,14 @@ public class Product {
         this.price = price;
         this.quantity = quantity;
     }
+
+    public static String normalizeName(String productName) {
+        return productName == null ? null : productName.toLowerCase(Locale.ROOT);
+    }
+
+    @PrePersist
+    @PreUpdate
+    void updateProductNameNormalized() {
+        productNameNormalized = normalizeName(productName);
+    }
 }
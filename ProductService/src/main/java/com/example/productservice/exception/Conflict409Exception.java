@@ -0,0 +1,7 @@
+package com.example.productservice.exception;
+
+public class Conflict409Exception extends RuntimeException{
+    public Conflict409Exception(String description) {
+        super(description);
+    }
+}
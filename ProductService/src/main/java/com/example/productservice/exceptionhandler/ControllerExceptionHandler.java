@@ -2,6 +2,7 @@ package com.example.productservice.exceptionhandler;
 
 
 import com.example.productservice.exception.BadGateway502Exception;
+import com.example.productservice.exception.Conflict409Exception;
 import com.example.productservice.exception.GatewayTimeout504Exception;
 import com.example.productservice.exception.InternalServerError500Exception;
 import com.example.productservice.exception.NotFound404Exception;
@@ -10,8 +11,11 @@ import com.example.productservice.exception.ErrorMessage;
 import com.example.productservice.exception.Forbidden403Exception;
 import com.example.productservice.exception.ServiceUnavailable503Exception;
 import com.example.productservice.exception.UnAuthorized401Exception;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -21,12 +25,19 @@ import java.util.Date;
 
 @ControllerAdvice
 public class ControllerExceptionHandler {
+    // one series per exception type and status, next to http.server.requests
+    private static final String HANDLED_EXCEPTIONS = "http.server.handled.exceptions";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     /*********************************************************
      *                   400 : BAD REQUEST                   *
      *********************************************************/
     @ResponseStatus(code = HttpStatus.BAD_REQUEST)
     @ExceptionHandler(BadRequest400Exception.class)
     public ResponseEntity<ErrorMessage> BadRequestException(BadRequest400Exception ex, WebRequest request) {
+        countHandled(ex, HttpStatus.BAD_REQUEST);
         ErrorMessage message = new ErrorMessage(
                 HttpStatus.BAD_REQUEST.value(),
                 new Date(),
@@ -42,6 +53,7 @@ public class ControllerExceptionHandler {
     @ResponseStatus(code = HttpStatus.UNAUTHORIZED)
     @ExceptionHandler(UnAuthorized401Exception.class)
     public ResponseEntity<ErrorMessage> UnAuthorizedException(UnAuthorized401Exception ex, WebRequest request) {
+        countHandled(ex, HttpStatus.UNAUTHORIZED);
         ErrorMessage message = new ErrorMessage(
                 HttpStatus.UNAUTHORIZED.value(),
                 new Date(),
@@ -58,6 +70,7 @@ public class ControllerExceptionHandler {
     @ResponseStatus(code = HttpStatus.FORBIDDEN)
     @ExceptionHandler(Forbidden403Exception.class)
     public ResponseEntity<ErrorMessage> ForbiddenException(Forbidden403Exception ex, WebRequest request) {
+        countHandled(ex, HttpStatus.FORBIDDEN);
         ErrorMessage message = new ErrorMessage(
                 HttpStatus.FORBIDDEN.value(),
                 new Date(),
@@ -73,6 +86,7 @@ public class ControllerExceptionHandler {
     @ResponseStatus(code = HttpStatus.NOT_FOUND)
     @ExceptionHandler(NotFound404Exception.class)
     public ResponseEntity<ErrorMessage> NotFoundException(NotFound404Exception ex, WebRequest request) {
+        countHandled(ex, HttpStatus.NOT_FOUND);
         ErrorMessage message = new ErrorMessage(
                 HttpStatus.NOT_FOUND.value(),
                 new Date(),
@@ -82,12 +96,47 @@ public class ControllerExceptionHandler {
         return new ResponseEntity<>(message, HttpStatus.NOT_FOUND);
     }
 
+    /*********************************************************
+     *                   409 : CONFLICT                      *
+     *  The request conflicts with the current resource state*
+     *********************************************************/
+    @ResponseStatus(code = HttpStatus.CONFLICT)
+    @ExceptionHandler(Conflict409Exception.class)
+    public ResponseEntity<ErrorMessage> ConflictException(Conflict409Exception ex, WebRequest request) {
+        countHandled(ex, HttpStatus.CONFLICT);
+        ErrorMessage message = new ErrorMessage(
+                HttpStatus.CONFLICT.value(),
+                new Date(),
+                ex.getMessage(),
+                request.getDescription(false));
+
+        return new ResponseEntity<>(message, HttpStatus.CONFLICT);
+    }
+
+    /*********************************************************
+     *                   409 : CONFLICT                      *
+     *  A concurrent write bumped the version first          *
+     *********************************************************/
+    @ResponseStatus(code = HttpStatus.CONFLICT)
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorMessage> OptimisticLockingFailureException(ObjectOptimisticLockingFailureException ex, WebRequest request) {
+        countHandled(ex, HttpStatus.CONFLICT);
+        ErrorMessage message = new ErrorMessage(
+                HttpStatus.CONFLICT.value(),
+                new Date(),
+                "Product has been modified by another request.",
+                request.getDescription(false));
+
+        return new ResponseEntity<>(message, HttpStatus.CONFLICT);
+    }
+
     /*********************************************************
      *                   500 : INTERNAL SERVER ERROR         *
      *********************************************************/
     @ResponseStatus(code = HttpStatus.INTERNAL_SERVER_ERROR)
     @ExceptionHandler(InternalServerError500Exception.class)
     public ResponseEntity<ErrorMessage> InternalServerErrorException(InternalServerError500Exception ex, WebRequest request) {
+        countHandled(ex, HttpStatus.INTERNAL_SERVER_ERROR);
         ErrorMessage message = new ErrorMessage(
                 HttpStatus.INTERNAL_SERVER_ERROR.value(),
                 new Date(),
@@ -103,6 +152,7 @@ public class ControllerExceptionHandler {
     @ResponseStatus(code = HttpStatus.BAD_GATEWAY)
     @ExceptionHandler(BadGateway502Exception.class)
     public ResponseEntity<ErrorMessage> BadGatewayException(BadGateway502Exception ex, WebRequest request) {
+        countHandled(ex, HttpStatus.BAD_GATEWAY);
         ErrorMessage message = new ErrorMessage(
                 HttpStatus.BAD_GATEWAY.value(),
                 new Date(),
@@ -118,6 +168,7 @@ public class ControllerExceptionHandler {
     @ResponseStatus(code = HttpStatus.SERVICE_UNAVAILABLE)
     @ExceptionHandler(ServiceUnavailable503Exception.class)
     public ResponseEntity<ErrorMessage> ServiceUnavailableException(ServiceUnavailable503Exception ex, WebRequest request) {
+        countHandled(ex, HttpStatus.SERVICE_UNAVAILABLE);
         ErrorMessage message = new ErrorMessage(
                 HttpStatus.SERVICE_UNAVAILABLE.value(),
                 new Date(),
@@ -134,6 +185,7 @@ public class ControllerExceptionHandler {
     @ResponseStatus(code = HttpStatus.GATEWAY_TIMEOUT)
     @ExceptionHandler(GatewayTimeout504Exception.class)
     public ResponseEntity<ErrorMessage> GatewayTimeoutException(GatewayTimeout504Exception ex, WebRequest request) {
+        countHandled(ex, HttpStatus.GATEWAY_TIMEOUT);
         ErrorMessage message = new ErrorMessage(
                 HttpStatus.GATEWAY_TIMEOUT.value(),
                 new Date(),
@@ -143,4 +195,9 @@ public class ControllerExceptionHandler {
         return new ResponseEntity<>(message, HttpStatus.GATEWAY_TIMEOUT);
     }
 
+    private void countHandled(Exception ex, HttpStatus status) {
+        meterRegistry.counter(HANDLED_EXCEPTIONS,
+                "exception", ex.getClass().getSimpleName(),
+                "status", String.valueOf(status.value())).increment();
+    }
 }
@@ -0,0 +1,13 @@
+package com.example.productservice.importer;
+
+import java.io.IOException;
+
+/**
+ * A source of feed rows, pulled one at a time so the importer decides how fast the feed is read.
+ */
+public interface ProductFeed {
+    /**
+     * The next row of the feed, or null once it is exhausted.
+     */
+    ProductFeedRow next() throws IOException;
+}
@@ -0,0 +1,116 @@
+package com.example.productservice.importer;
+
+import com.example.productservice.model.ProductRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import org.springframework.http.MediaType;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads a product feed one row at a time, either NDJSON (one ProductRequest object per line)
+ * or CSV with a name,description,type,price,quantity header.
+ *
+ * Rows are parsed one at a time as the caller asks for them, so memory stays bounded by the
+ * reader's buffers whatever the size of the feed. Those buffers do read a few kilobytes ahead of
+ * the row being returned, but no further: a caller that stops to commit soon stops draining the
+ * socket too and the client is held back by TCP flow control. A row that does not parse comes back
+ * with an error and reading carries on with the next one.
+ */
+public class ProductFeedReader implements ProductFeed, Closeable {
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
+    private static final CsvMapper CSV_MAPPER = CsvMapper.builder()
+            .addModule(new ParameterNamesModule())
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .enable(CsvParser.Feature.SKIP_EMPTY_LINES)
+            .enable(CsvParser.Feature.TRIM_SPACES)
+            .build();
+
+    private final Reader reader;
+    // NDJSON: lines are parsed one by one so a malformed line cannot swallow the next
+    private final BufferedReader lines;
+    private final ObjectReader lineReader;
+    // CSV: records may span lines inside quotes, so the CSV parser does the splitting
+    private final MappingIterator<ProductRequest> records;
+    private long row;
+
+    private ProductFeedReader(Reader reader, ObjectMapper objectMapper, boolean csv) throws IOException {
+        this.reader = reader;
+        if (csv) {
+            this.lines = null;
+            this.lineReader = null;
+            this.records = CSV_MAPPER.readerFor(ProductRequest.class)
+                    .with(CsvSchema.emptySchema().withHeader())
+                    .readValues(reader);
+        } else {
+            this.lines = new BufferedReader(reader);
+            this.lineReader = objectMapper.readerFor(ProductRequest.class);
+            this.records = null;
+        }
+    }
+
+    public static ProductFeedReader open(MediaType contentType, InputStream body, ObjectMapper objectMapper) throws IOException {
+        Charset charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+        boolean csv = MediaType.parseMediaType(TEXT_CSV_VALUE).isCompatibleWith(contentType);
+        return new ProductFeedReader(new InputStreamReader(body, charset), objectMapper, csv);
+    }
+
+    @Override
+    public ProductFeedRow next() throws IOException {
+        return records != null ? nextRecord() : nextLine();
+    }
+
+    private ProductFeedRow nextLine() throws IOException {
+        String line;
+        do {
+            line = lines.readLine();
+            if (line == null) {
+                return null;
+            }
+            row++;
+        } while (line.isBlank());
+
+        try {
+            return new ProductFeedRow(row, lineReader.readValue(line), null);
+        } catch (JsonProcessingException e) {
+            return new ProductFeedRow(row, null, "Malformed row: " + e.getOriginalMessage());
+        }
+    }
+
+    private ProductFeedRow nextRecord() throws IOException {
+        try {
+            if (!records.hasNextValue()) {
+                return null;
+            }
+        } catch (JsonProcessingException e) {
+            // the row was cut short or had too many columns; the parser resyncs at the next record
+            return new ProductFeedRow(++row, null, "Malformed row: " + e.getOriginalMessage());
+        }
+        row++;
+        try {
+            return new ProductFeedRow(row, records.nextValue(), null);
+        } catch (JsonProcessingException e) {
+            return new ProductFeedRow(row, null, "Malformed row: " + e.getOriginalMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
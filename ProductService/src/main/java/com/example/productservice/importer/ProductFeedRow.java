@@ -0,0 +1,15 @@
+package com.example.productservice.importer;
+
+import com.example.productservice.model.ProductRequest;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ProductFeedRow {
+    // 1-based: the line for NDJSON, the record after the header for CSV
+    private long row;
+    // null when the row could not be parsed
+    private ProductRequest product;
+    private String error;
+}
@@ -0,0 +1,22 @@
+package com.example.productservice.index;
+
+import com.example.productservice.model.ProductResponse;
+
+import java.util.List;
+
+/**
+ * Notified by ProductServiceImpl after every product write has been saved,
+ * so that in-memory structures derived from the PRODUCT table can follow it.
+ */
+public interface ProductChangeListener {
+    void onProductsSaved(List<ProductResponse> products);
+
+    void onProductsDeleted(List<ProductResponse> products);
+
+    void onAllProductsDeleted();
+
+    default void onProductUpdated(ProductResponse before, ProductResponse after) {
+        onProductsDeleted(List.of(before));
+        onProductsSaved(List.of(after));
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.productservice.index;
+
+import com.example.productservice.model.ProductResponse;
+import com.example.productservice.repository.ProductRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Bloom filter over product ids, consulted before the existence check and id lookups in
+ * ProductServiceImpl when product.existence-filter.enabled is true. A definite miss is
+ * answered without touching the database.
+ *
+ * The filter is built from the table once the application is ready and then takes every
+ * product saved through this instance. A Bloom filter cannot forget, so deleted products stay
+ * as false positives until {@link #rebuild()} runs again on
+ * product.existence-filter.rebuild-interval. Before the first build, and from a wipe until the
+ * next one, every id may exist.
+ *
+ * Rows written by other instances are only in the filter after the next rebuild. The build
+ * records the highest id it saw, and any id above it may exist, which covers products created
+ * elsewhere since. That relies on ids growing, which pooled-lo only roughly gives: an instance
+ * hands out the rest of a block of increment_size ids it reserved earlier, so up to
+ * increment_size - 1 of its new products per instance can land below the mark and be reported
+ * missing until the rebuild. Names have no such order, so there is no name filter: a product
+ * created or renamed on another instance would read as missing by name until the rebuild.
+ */
+@Component
+@Log4j2
+public class ProductExistenceFilter implements ProductChangeListener {
+    private static final int REBUILD_PAGE_SIZE = 1000;
+    // headroom for inserts between rebuilds before the false-positive rate climbs past its target
+    private static final int CAPACITY_FACTOR = 2;
+    private static final int MIN_CAPACITY = 1024;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Value("${product.existence-filter.enabled:false}")
+    private boolean enabled;
+
+    @Value("${product.existence-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private volatile Filters current;
+    // the filter a running rebuild fills; saves are added to both so none is lost on the swap
+    private Filters building;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean mightContainId(long productId) {
+        Filters filters = current;
+        return !enabled || filters == null || productId > filters.maxProductId || filters.ids.mightContain(productId);
+    }
+
+    @Override
+    public synchronized void onProductsSaved(List<ProductResponse> products) {
+        if (!enabled) {
+            return;
+        }
+        products.forEach(this::add);
+    }
+
+    @Override
+    public void onProductsDeleted(List<ProductResponse> products) {
+        // left in the filter as false positives until the next rebuild
+    }
+
+    @Override
+    public void onProductUpdated(ProductResponse before, ProductResponse after) {
+        // an update keeps the id
+    }
+
+    @Override
+    public synchronized void onAllProductsDeleted() {
+        if (!enabled) {
+            return;
+        }
+        // unknown until the next rebuild, rather than empty: rows other instances add meanwhile would read as missing
+        current = null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${product.existence-filter.rebuild-interval:PT10M}",
+            fixedDelayString = "${product.existence-filter.rebuild-interval:PT10M}")
+    public void rebuild() {
+        Filters filters;
+        synchronized (this) {
+            if (!enabled || building != null) {
+                return;
+            }
+            long capacity = Math.max(MIN_CAPACITY, productRepository.count() * CAPACITY_FACTOR);
+            filters = new Filters(capacity, falsePositiveRate);
+            building = filters;
+        }
+        try {
+            long products = 0;
+            long lastProductId = 0;
+            List<ProductResponse> page;
+            do {
+                page = productRepository.findProductResponsesAfter(lastProductId, PageRequest.of(0, REBUILD_PAGE_SIZE));
+                for (ProductResponse product : page) {
+                    filters.add(product);
+                    lastProductId = product.getProductId();
+                }
+                products += page.size();
+            } while (page.size() == REBUILD_PAGE_SIZE);
+            // local saves since are in the filter anyway and do not move the mark, or ids other
+            // instances hand out meanwhile below them would read as missing
+            filters.maxProductId = lastProductId;
+            synchronized (this) {
+                current = filters;
+            }
+            log.info("Product existence filter built with {} products up to id {}, capacity {}", products, lastProductId, filters.capacity);
+        } finally {
+            synchronized (this) {
+                building = null;
+            }
+        }
+    }
+
+    private void add(ProductResponse product) {
+        Filters filters = current;
+        if (filters != null) {
+            filters.add(product);
+        }
+        if (building != null) {
+            building.add(product);
+        }
+    }
+
+    private static final class Filters {
+        private final long capacity;
+        private final BloomFilter ids;
+        // ids above the highest one the build saw may exist, whatever the filter says
+        private long maxProductId;
+
+        private Filters(long capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            this.ids = new BloomFilter(capacity, falsePositiveRate);
+        }
+
+        private void add(ProductResponse product) {
+            ids.add(product.getProductId());
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.productservice.index;
+
+import com.example.productservice.model.ProductResponse;
+import com.example.productservice.repository.ProductRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Inverted n-gram index over lower-cased product names, used by getProductsByName
+ * when product.search.index.enabled is true.
+ *
+ * A substring query is answered by intersecting the posting lists of its n-grams and
+ * checking the survivors with String.contains; queries shorter than one n-gram scan the
+ * in-memory names instead. The index is built from the table on first use and then
+ * maintained from ProductServiceImpl's write paths, so it only sees writes made through
+ * this instance.
+ */
+@Component
+@Log4j2
+public class ProductNameIndex implements ProductChangeListener {
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Value("${product.search.index.enabled:false}")
+    private boolean enabled;
+
+    @Value("${product.search.index.gram-size:3}")
+    private int gramSize;
+
+    @Value("${product.search.max-results:100}")
+    private int maxResults;
+
+    private final Map<Long, String> names = new HashMap<>();
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean loaded;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return ids of products whose name contains {@code query} ignoring case, best match first,
+     *         at most product.search.max-results of them
+     */
+    public List<Long> search(String query) {
+        ensureLoaded();
+        String needle = normalize(query);
+        lock.readLock().lock();
+        try {
+            Set<Long> candidates;
+            if (needle.length() < gramSize) {
+                candidates = names.keySet();
+            } else {
+                candidates = intersect(grams(needle));
+            }
+            return candidates.stream()
+                    .filter(id -> names.get(id).contains(needle))
+                    .sorted(Comparator.<Long>comparingInt(id -> rank(names.get(id), needle))
+                            .thenComparingInt(id -> names.get(id).length())
+                            .thenComparing(id -> id))
+                    .limit(maxResults)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void onProductsSaved(List<ProductResponse> products) {
+        if (!enabled) {
+            return;
+        }
+        // checked under the lock: a write landing while ensureLoaded() scans waits for it, then applies
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                return;
+            }
+            products.forEach(product -> {
+                remove(product.getProductId());
+                add(product.getProductId(), product.getProductName());
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onProductsDeleted(List<ProductResponse> products) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                return;
+            }
+            products.forEach(product -> remove(product.getProductId()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onAllProductsDeleted() {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            // rows inserted while a chunked wipe ran survive it, so the next search rebuilds from the table
+            names.clear();
+            postings.clear();
+            loaded = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+            long lastProductId = 0;
+            List<ProductResponse> page;
+            do {
+                page = productRepository.findProductResponsesAfter(lastProductId, PageRequest.of(0, REBUILD_PAGE_SIZE));
+                for (ProductResponse product : page) {
+                    add(product.getProductId(), product.getProductName());
+                    lastProductId = product.getProductId();
+                }
+            } while (page.size() == REBUILD_PAGE_SIZE);
+            loaded = true;
+            log.info("Product name index built with {} products and {} grams", names.size(), postings.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(long productId, String productName) {
+        if (productName == null) {
+            return;
+        }
+        String name = normalize(productName);
+        names.put(productId, name);
+        grams(name).forEach(gram -> postings.computeIfAbsent(gram, key -> new HashSet<>()).add(productId));
+    }
+
+    private void remove(long productId) {
+        String name = names.remove(productId);
+        if (name == null) {
+            return;
+        }
+        grams(name).forEach(gram -> {
+            Set<Long> ids = postings.get(gram);
+            ids.remove(productId);
+            if (ids.isEmpty()) {
+                postings.remove(gram);
+            }
+        });
+    }
+
+    private Set<Long> intersect(Set<String> grams) {
+        List<Set<Long>> lists = new ArrayList<>();
+        for (String gram : grams) {
+            Set<Long> ids = postings.get(gram);
+            if (ids == null) {
+                return Set.of();
+            }
+            lists.add(ids);
+        }
+        // start from the shortest posting list so every retainAll only shrinks a small set
+        lists.sort(Comparator.comparingInt(Set::size));
+        Set<Long> result = new HashSet<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.retainAll(lists.get(i));
+        }
+        return result;
+    }
+
+    private Set<String> grams(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + gramSize <= text.length(); i++) {
+            grams.add(text.substring(i, i + gramSize));
+        }
+        return grams;
+    }
+
+    // 0 = exact, 1 = name prefix, 2 = word prefix, 3 = anywhere else
+    private int rank(String name, String needle) {
+        if (name.equals(needle)) {
+            return 0;
+        }
+        if (name.startsWith(needle)) {
+            return 1;
+        }
+        if (name.contains(" " + needle)) {
+            return 2;
+        }
+        return 3;
+    }
+
+    private String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+}
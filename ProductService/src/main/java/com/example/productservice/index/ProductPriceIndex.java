@@ -0,0 +1,296 @@
+package com.example.productservice.index;
+
+import com.example.productservice.model.ProductResponse;
+import com.example.productservice.repository.ProductRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory price index behind the price range count and the price range pages when
+ * product.price.index.enabled is true. The unpaged price lists stay on the range queries: their
+ * ids would all go into one IN list, which for a wide band is the whole catalogue.
+ *
+ * Prices are kept in a sorted double[] with the product ids in a parallel long[], ordered by
+ * (price, productId), so a price band is two binary searches and its size is a subtraction.
+ * Writers build a new pair of arrays and publish it in one volatile write; readers never lock.
+ * Like ProductNameIndex it is built from the table on first use and only sees writes made
+ * through this instance.
+ */
+@Component
+@Log4j2
+public class ProductPriceIndex implements ProductChangeListener {
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Value("${product.price.index.enabled:false}")
+    private boolean enabled;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private volatile boolean loaded;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Number of products with minPrice <= price <= maxPrice. */
+    public int count(double minPrice, double maxPrice) {
+        Snapshot current = loadedSnapshot();
+        return Math.max(0, current.upperBound(maxPrice) - current.lowerBound(minPrice));
+    }
+
+    /**
+     * Up to {@code limit} ids of products with minPrice <= price <= maxPrice that come strictly
+     * after (afterPrice, afterProductId) in (price, productId) order.
+     */
+    public List<Long> findBetweenAfter(double minPrice, double maxPrice, double afterPrice, long afterProductId, int limit) {
+        Snapshot current = loadedSnapshot();
+        int from = Math.max(current.lowerBound(minPrice), current.after(afterPrice, afterProductId));
+        int to = current.upperBound(maxPrice);
+        return current.ids(from, Math.min(to, from + limit));
+    }
+
+    @Override
+    public synchronized void onProductsSaved(List<ProductResponse> products) {
+        if (!enabled || !loaded) {
+            return;
+        }
+        double[] prices = new double[products.size()];
+        long[] ids = new long[products.size()];
+        for (int i = 0; i < products.size(); i++) {
+            prices[i] = products.get(i).getPrice();
+            ids[i] = products.get(i).getProductId();
+        }
+        // saved products are new rows, so there is nothing to take out
+        snapshot = snapshot.merge(new int[0], Snapshot.sorted(prices, ids, ids.length));
+    }
+
+    @Override
+    public synchronized void onProductsDeleted(List<ProductResponse> products) {
+        if (!enabled || !loaded) {
+            return;
+        }
+        snapshot = snapshot.merge(snapshot.positionsOf(products), Snapshot.EMPTY);
+    }
+
+    @Override
+    public synchronized void onProductUpdated(ProductResponse before, ProductResponse after) {
+        if (!enabled || !loaded) {
+            return;
+        }
+        // quantity-only updates, such as every reduceQuantity, leave the order as it is
+        if (Double.compare(before.getPrice(), after.getPrice()) == 0) {
+            return;
+        }
+        snapshot = snapshot.merge(snapshot.positionsOf(List.of(before)),
+                Snapshot.sorted(new double[]{after.getPrice()}, new long[]{after.getProductId()}, 1));
+    }
+
+    @Override
+    public synchronized void onAllProductsDeleted() {
+        if (!enabled) {
+            return;
+        }
+        // rows inserted while a chunked wipe ran survive it, so the next query rebuilds from the table
+        snapshot = Snapshot.EMPTY;
+        loaded = false;
+    }
+
+    private Snapshot loadedSnapshot() {
+        if (!loaded) {
+            load();
+        }
+        return snapshot;
+    }
+
+    private synchronized void load() {
+        if (loaded) {
+            return;
+        }
+        double[] prices = new double[REBUILD_PAGE_SIZE];
+        long[] ids = new long[REBUILD_PAGE_SIZE];
+        int size = 0;
+        long lastProductId = 0;
+        List<ProductResponse> page;
+        do {
+            page = productRepository.findProductResponsesAfter(lastProductId, PageRequest.of(0, REBUILD_PAGE_SIZE));
+            if (size + page.size() > ids.length) {
+                prices = Arrays.copyOf(prices, Math.max(ids.length * 2, size + page.size()));
+                ids = Arrays.copyOf(ids, prices.length);
+            }
+            for (ProductResponse product : page) {
+                prices[size] = product.getPrice();
+                ids[size] = product.getProductId();
+                size++;
+                lastProductId = product.getProductId();
+            }
+        } while (page.size() == REBUILD_PAGE_SIZE);
+        snapshot = Snapshot.sorted(prices, ids, size);
+        loaded = true;
+        log.info("Product price index built with {} products", size);
+    }
+
+    /** Immutable (price, productId)-ordered arrays. */
+    private static final class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot(new double[0], new long[0]);
+
+        private final double[] prices;
+        private final long[] ids;
+
+        private Snapshot(double[] prices, long[] ids) {
+            this.prices = prices;
+            this.ids = ids;
+        }
+
+        static Snapshot sorted(double[] prices, long[] ids, int size) {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> compare(prices[a], ids[a], prices[b], ids[b]));
+            double[] sortedPrices = new double[size];
+            long[] sortedIds = new long[size];
+            for (int i = 0; i < size; i++) {
+                sortedPrices[i] = prices[order[i]];
+                sortedIds[i] = ids[order[i]];
+            }
+            return new Snapshot(sortedPrices, sortedIds);
+        }
+
+        int size() {
+            return ids.length;
+        }
+
+        /** First position whose price is >= price. */
+        int lowerBound(double price) {
+            int low = 0;
+            int high = prices.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (Double.compare(prices[mid], price) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /** First position whose price is > price. */
+        int upperBound(double price) {
+            int low = 0;
+            int high = prices.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (Double.compare(prices[mid], price) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /** First position strictly after (price, productId). */
+        int after(double price, long productId) {
+            int low = 0;
+            int high = prices.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compare(prices[mid], ids[mid], price, productId) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        List<Long> ids(int from, int to) {
+            if (from >= to) {
+                return List.of();
+            }
+            return Arrays.stream(ids, from, to).boxed().collect(Collectors.toList());
+        }
+
+        /**
+         * Sorted, distinct positions of the given products, each found by binary search on its
+         * (price, productId). Only a product indexed at another price than the one given, e.g.
+         * after a write behind the service's back, is looked for by scanning the ids.
+         */
+        int[] positionsOf(List<ProductResponse> products) {
+            int[] positions = new int[products.size()];
+            int size = 0;
+            for (ProductResponse product : products) {
+                int position = indexOf(product.getPrice(), product.getProductId());
+                if (position >= 0) {
+                    positions[size++] = position;
+                }
+            }
+            Arrays.sort(positions, 0, size);
+            return Arrays.stream(positions, 0, size).distinct().toArray();
+        }
+
+        private int indexOf(double price, long productId) {
+            int position = after(price, productId) - 1;
+            if (position >= 0 && ids[position] == productId && Double.compare(prices[position], price) == 0) {
+                return position;
+            }
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == productId) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Drops the entries at the sorted {@code removed} positions and inserts the already sorted
+         * {@code added}, copying the runs in between with System.arraycopy.
+         */
+        Snapshot merge(int[] removed, Snapshot added) {
+            double[] mergedPrices = new double[prices.length - removed.length + added.size()];
+            long[] mergedIds = new long[mergedPrices.length];
+            int from = 0;
+            int size = 0;
+            int r = 0;
+            for (int j = 0; j <= added.size(); j++) {
+                int to = j < added.size() ? after(added.prices[j], added.ids[j]) : prices.length;
+                while (r < removed.length && removed[r] < to) {
+                    size = copy(from, removed[r], mergedPrices, mergedIds, size);
+                    from = removed[r++] + 1;
+                }
+                size = copy(from, to, mergedPrices, mergedIds, size);
+                from = Math.max(from, to);
+                if (j < added.size()) {
+                    mergedPrices[size] = added.prices[j];
+                    mergedIds[size++] = added.ids[j];
+                }
+            }
+            return new Snapshot(mergedPrices, mergedIds);
+        }
+
+        private int copy(int from, int to, double[] targetPrices, long[] targetIds, int offset) {
+            int length = to - from;
+            if (length <= 0) {
+                return offset;
+            }
+            System.arraycopy(prices, from, targetPrices, offset, length);
+            System.arraycopy(ids, from, targetIds, offset, length);
+            return offset + length;
+        }
+
+        private static int compare(double price, long productId, double otherPrice, long otherProductId) {
+            int byPrice = Double.compare(price, otherPrice);
+            return byPrice != 0 ? byPrice : Long.compare(productId, otherProductId);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.productservice.logging;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.ToLongFunction;
+
+/**
+ * Logs service results without calling toString() on every row.
+ *
+ * By default a result is logged as one summary line: the caller's message followed by the row
+ * count, the productId range and the elapsed time. The rows themselves are only written when the
+ * request is sampled ({@code product.logging.payload.sample-rate}) or carries the
+ * {@code product.logging.payload.debug-header} header set to true, and even then the line is cut
+ * at {@code product.logging.payload.max-bytes} UTF-8 bytes.
+ */
+@Component
+public class PayloadLogger {
+    private static final String TRUNCATED = "... (truncated)";
+
+    @Value("${product.logging.payload.sample-rate:0.0}")
+    private double sampleRate;
+
+    @Value("${product.logging.payload.debug-header:X-Debug-Payload}")
+    private String debugHeader;
+
+    @Value("${product.logging.payload.max-bytes:4096}")
+    private int maxBytes;
+
+    /**
+     * @param startNanos {@link System#nanoTime()} taken when the operation started
+     * @param message    Log4j2 pattern for {@code params}, e.g. "Getting products by name {}"
+     */
+    public <T> void info(Logger logger, long startNanos, Collection<T> payload, ToLongFunction<T> idOf,
+                         String message, Object... params) {
+        if (!logger.isInfoEnabled()) {
+            return;
+        }
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        String summary = ParameterizedMessage.format(message, params)
+                + " (" + payload.size() + " products, ids " + idRange(payload, idOf) + ", " + elapsedMillis + " ms)";
+        logger.info(cap(summary));
+
+        if (shouldDump()) {
+            StringBuilder dump = new StringBuilder(summary).append(" payload: [");
+            for (T item : payload) {
+                // stop rendering rows once the line is over the cap anyway
+                if (dump.length() > maxBytes) {
+                    break;
+                }
+                dump.append(item).append(", ");
+            }
+            logger.info(cap(dump.append(']').toString()));
+        }
+    }
+
+    private <T> String idRange(Collection<T> payload, ToLongFunction<T> idOf) {
+        if (payload.isEmpty()) {
+            return "-";
+        }
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (T item : payload) {
+            long id = idOf.applyAsLong(item);
+            min = Math.min(min, id);
+            max = Math.max(max, id);
+        }
+        return min + ".." + max;
+    }
+
+    private boolean shouldDump() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes
+                && Boolean.parseBoolean(((ServletRequestAttributes) attributes).getRequest().getHeader(debugHeader))) {
+            return true;
+        }
+        return sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    private String cap(String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= maxBytes) {
+            return line;
+        }
+        int limit = Math.max(0, maxBytes - TRUNCATED.length());
+        // back off to the start of a UTF-8 sequence so no character is split
+        while (limit > 0 && (bytes[limit] & 0xC0) == 0x80) {
+            limit--;
+        }
+        return new String(Arrays.copyOf(bytes, limit), StandardCharsets.UTF_8) + TRUNCATED;
+    }
+}
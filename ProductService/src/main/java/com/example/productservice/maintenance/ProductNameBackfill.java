@@ -0,0 +1,35 @@
+package com.example.productservice.maintenance;
+
+import com.example.productservice.repository.ProductRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Fills PRODUCT_NAME_NORMALIZED for rows that do not have it yet, once the application is ready.
+ *
+ * The service sets the column on every write; rows from before the column existed, or inserted
+ * by other writers, still answer name lookups through the slower LOWER(PRODUCT_NAME) fallback
+ * in ProductRepositoryCustomImpl until this has run.
+ */
+@Component
+@Log4j2
+public class ProductNameBackfill {
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        Integer rows = new TransactionTemplate(transactionManager).execute(status -> productRepository.backfillProductNameNormalized());
+        if (rows != null && rows > 0) {
+            log.info("Backfilled the normalized name of {} products", rows);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.productservice.maintenance;
+
+import com.example.productservice.index.ProductChangeListener;
+import com.example.productservice.model.WipeStatusResponse;
+import com.example.productservice.reconcile.ProductReconciler;
+import com.example.productservice.repository.ProductRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Empties the PRODUCT table without loading a single entity.
+ *
+ * Small tables go in one statement, TRUNCATE when product.wipe.truncate is set and a bulk
+ * DELETE otherwise. Above product.wipe.background-threshold rows the table is cleared on a
+ * background thread in productId windows of product.wipe.chunk-size rows, one transaction each,
+ * and {@link #status()} reports progress. Rows inserted while a chunked wipe runs may survive it.
+ *
+ * Listeners are told once the rows are gone. They drop what they hold and load again from the table,
+ * so rows that survived a chunked wipe reappear in them; until then they serve the rows being wiped.
+ */
+@Component
+@Log4j2
+public class ProductWipeJob {
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private List<ProductChangeListener> productChangeListeners;
+
+    @Autowired
+    private ProductReconciler productReconciler;
+
+    @Value("${product.wipe.truncate:false}")
+    private boolean truncate;
+
+    @Value("${product.wipe.background-threshold:100000}")
+    private long backgroundThreshold;
+
+    @Value("${product.wipe.chunk-size:10000}")
+    private int chunkSize;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "product-wipe");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile WipeStatusResponse status = WipeStatusResponse.builder().state("IDLE").build();
+
+    public WipeStatusResponse status() {
+        return status;
+    }
+
+    public synchronized WipeStatusResponse start() {
+        if ("RUNNING".equals(status.getState())) {
+            return status;
+        }
+        long start = System.nanoTime();
+        long totalRows = productRepository.count();
+
+        if (totalRows <= backgroundThreshold) {
+            String mode = truncate ? "TRUNCATE" : "DELETE";
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            try (ProductReconciler.Write write = productReconciler.startWrite()) {
+                transactionTemplate.executeWithoutResult(transactionStatus -> {
+                    write.joinTransaction();
+                    if (truncate) {
+                        productRepository.truncate();
+                    } else {
+                        productRepository.deleteAllInBatch();
+                    }
+                });
+                // only once the rows are gone, so reads racing the delete cannot refill a cache with them;
+                // a failed wipe leaves the listeners as they were
+                flushListeners();
+            }
+            status = WipeStatusResponse.builder()
+                    .state("DONE")
+                    .mode(mode)
+                    .totalRows(totalRows)
+                    .deletedRows(totalRows)
+                    .elapsedMillis((System.nanoTime() - start) / 1_000_000)
+                    .build();
+            log.info("Wiped {} products with {}", totalRows, mode);
+            return status;
+        }
+
+        status = WipeStatusResponse.builder().state("RUNNING").mode("CHUNKED").totalRows(totalRows).build();
+        executor.submit(() -> deleteInChunks(start));
+        log.info("Started chunked wipe of {} products", totalRows);
+        return status;
+    }
+
+    private void deleteInChunks(long start) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        long lastProductId = Long.MIN_VALUE;
+        long deletedRows = 0;
+        try (ProductReconciler.Write write = productReconciler.startWrite()) {
+            List<Long> productIds;
+            while (!(productIds = productRepository.findProductIdsAfter(lastProductId, PageRequest.of(0, chunkSize))).isEmpty()) {
+                long fromProductId = productIds.get(0);
+                long toProductId = productIds.get(productIds.size() - 1);
+                Integer deleted = transactionTemplate.execute(transactionStatus -> {
+                    write.joinTransaction();
+                    return productRepository.deleteByProductIdBetween(fromProductId, toProductId);
+                });
+                deletedRows += deleted == null ? 0 : deleted;
+                lastProductId = toProductId;
+                status = status.toBuilder()
+                        .deletedRows(deletedRows)
+                        .elapsedMillis((System.nanoTime() - start) / 1_000_000)
+                        .build();
+                log.debug("Wiped products up to id {}, {} of {} rows", toProductId, deletedRows, status.getTotalRows());
+            }
+            flushListeners();
+            status = status.toBuilder().state("DONE").elapsedMillis((System.nanoTime() - start) / 1_000_000).build();
+            log.info("Chunked wipe finished, {} products deleted", deletedRows);
+        } catch (RuntimeException ex) {
+            // the chunks that did commit are gone, so derived structures reload from what is left
+            if (deletedRows > 0) {
+                flushListeners();
+            }
+            status = status.toBuilder().state("FAILED").elapsedMillis((System.nanoTime() - start) / 1_000_000).build();
+            log.error("Chunked wipe failed after {} products", deletedRows, ex);
+        }
+    }
+
+    private void flushListeners() {
+        productChangeListeners.forEach(ProductChangeListener::onAllProductsDeleted);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
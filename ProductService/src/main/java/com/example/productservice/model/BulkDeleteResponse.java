@@ -0,0 +1,15 @@
+package com.example.productservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkDeleteResponse {
+    private long[] deletedIds;
+    private long[] missingIds;
+}
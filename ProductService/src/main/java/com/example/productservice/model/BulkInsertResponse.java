@@ -0,0 +1,17 @@
+package com.example.productservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkInsertResponse {
+    private long rows;
+    private int chunks;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+}
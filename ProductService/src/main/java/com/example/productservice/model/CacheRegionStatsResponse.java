@@ -0,0 +1,19 @@
+package com.example.productservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CacheRegionStatsResponse {
+    private String region;
+    private long size;
+    private long hitCount;
+    private long missCount;
+    private long putCount;
+    private double hitRate;
+}
@@ -0,0 +1,18 @@
+package com.example.productservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductCursorPage {
+    private List<ProductResponse> products;
+    private String nextCursor;
+    private boolean hasNext;
+}
@@ -0,0 +1,19 @@
+package com.example.productservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductImportProgress {
+    // the chunk just committed, counting from 1; the totals below include it
+    private int chunk;
+    private long rows;
+    private long imported;
+    private long rejected;
+    private long elapsedMillis;
+}
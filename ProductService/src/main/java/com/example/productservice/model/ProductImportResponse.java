@@ -0,0 +1,23 @@
+package com.example.productservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductImportResponse {
+    private long rows;
+    private long imported;
+    private long rejected;
+    private int chunks;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+    // the first product.import.max-errors rejected rows; rejected has the full count
+    private List<ProductImportError> errors;
+}
@@ -0,0 +1,19 @@
+package com.example.productservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Partial update of a product: only the non-null fields are written.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductPatchRequest {
+    private String name;
+    private String description;
+    private String type;
+    private Double price;
+    private Long quantity;
+}
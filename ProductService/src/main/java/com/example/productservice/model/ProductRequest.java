@@ -10,4 +10,18 @@ public class ProductRequest {
     private String type;
     private double price;
     private long quantity;
+
+    /**
+     * The checks every endpoint and import applies before a product is written:
+     * a name and a type, and no negative price or quantity.
+     */
+    public static boolean isValid(ProductRequest productRequest) {
+        return productRequest != null
+                && productRequest.getName() != null
+                && productRequest.getName().length() != 0
+                && productRequest.getType() != null
+                && productRequest.getType().length() != 0
+                && productRequest.getPrice() >= 0
+                && productRequest.getQuantity() >= 0;
+    }
 }
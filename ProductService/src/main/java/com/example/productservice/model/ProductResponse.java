@@ -1,5 +1,6 @@
 package com.example.productservice.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -16,4 +17,11 @@ public class ProductResponse {
     private String productType;
     private double price;
     private long quantity;
+    // sent as the ETag of GET /api/product/{id} rather than in the body
+    @JsonIgnore
+    private long version;
+
+    public ProductResponse(long productId, String productName, String productDescription, String productType, double price, long quantity) {
+        this(productId, productName, productDescription, productType, price, quantity, 0);
+    }
 }
@@ -0,0 +1,20 @@
+package com.example.productservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder(toBuilder = true)
+@AllArgsConstructor
+@NoArgsConstructor
+public class WipeStatusResponse {
+    // IDLE, RUNNING, DONE or FAILED
+    private String state;
+    // TRUNCATE, DELETE or CHUNKED
+    private String mode;
+    private long totalRows;
+    private long deletedRows;
+    private long elapsedMillis;
+}
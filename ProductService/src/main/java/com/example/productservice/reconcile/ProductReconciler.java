@@ -0,0 +1,277 @@
+package com.example.productservice.reconcile;
+
+import com.example.productservice.repository.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Lets a scan of the PRODUCT table replace a running figure that ProductChangeListener deltas
+ * keep up to date, such as InventoryValuation and ProductCounter, while writes keep coming.
+ *
+ * Every write made through this service is opened with {@link #startWrite()}, joins each of its
+ * transactions with {@link Write#joinTransaction()} and is closed once its listeners have been
+ * told. Commits are numbered as they start. The scan runs in a REPEATABLE READ transaction whose
+ * snapshot is pinned by a cheap read first; if no commit was under way while it was pinned, the
+ * commits numbered up to then are in the scan and every later one is not. Listeners hand each
+ * delta to {@link #record(Object, Object)} while a round is open, and the scan is adopted plus the
+ * deltas of the commits it does not include, once the writes it does include have notified. A
+ * round is only skipped, and counted in product.reconcile.rounds, when no pin is clean after
+ * product.reconcile.pin-attempts tries or those writes take longer than
+ * product.reconcile.settle-timeout to notify. Writes made outside this service are what the scan
+ * is there to pick up.
+ */
+@Component
+@Log4j2
+public class ProductReconciler {
+    public static final String ROUNDS_METRIC = "product.reconcile.rounds";
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${product.reconcile.pin-attempts:10}")
+    private int pinAttempts;
+
+    @Value("${product.reconcile.settle-timeout:PT1S}")
+    private Duration settleTimeout;
+
+    private final AtomicLong commitsStarted = new AtomicLong();
+    private final AtomicLong commitsEnded = new AtomicLong();
+    private final Set<Write> open = ConcurrentHashMap.newKeySet();
+    private final ThreadLocal<Write> current = new ThreadLocal<>();
+    // the open round of each listener, keyed by its monitor
+    private final Map<Object, Round<?>> rounds = new ConcurrentHashMap<>();
+
+    public Write startWrite() {
+        Write write = new Write(current.get());
+        open.add(write);
+        current.set(write);
+        return write;
+    }
+
+    /**
+     * Hands a delta the caller applies, or skips because it is not loaded yet, to the round open
+     * for {@code monitor}, if any. Callers hold {@code monitor}.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void record(Object monitor, T delta) {
+        Round<T> round = (Round<T>) rounds.get(monitor);
+        if (round != null) {
+            round.deltas.add(new Delta<>(current.get(), delta));
+        }
+    }
+
+    /** Voids the round open for {@code monitor}, e.g. after a wipe. Callers hold {@code monitor}. */
+    public void discard(Object monitor) {
+        Round<?> round = rounds.get(monitor);
+        if (round != null) {
+            round.discarded = true;
+        }
+    }
+
+    /**
+     * Runs {@code scan} and hands its result, plus the recorded deltas of the commits it does not
+     * include, to {@code adopt} while holding {@code monitor}, the lock the caller applies deltas
+     * under. Returns false if the round had to be skipped. Callers must not hold {@code monitor}.
+     */
+    public <T> boolean reconcile(String name, Object monitor, Supplier<T> scan, BinaryOperator<T> plus, Consumer<T> adopt) {
+        Round<T> round = new Round<>();
+        synchronized (monitor) {
+            rounds.put(monitor, round);
+        }
+        try {
+            Pinned<T> pinned = pinAndScan(scan);
+            if (pinned == null) {
+                return skipped(name, "commits kept overlapping the snapshot");
+            }
+            if (!settle(pinned.commits)) {
+                return skipped(name, "writes included in the scan have not notified yet");
+            }
+            synchronized (monitor) {
+                rounds.remove(monitor, round);
+                if (round.discarded) {
+                    return skipped(name, "the table was wiped during the scan");
+                }
+                T value = pinned.scanned;
+                for (Delta<T> delta : round.deltas) {
+                    long commit = delta.write == null ? 0 : delta.commit;
+                    if (commit == 0) {
+                        return skipped(name, "a change was applied outside a tracked write");
+                    }
+                    if (commit > pinned.commits) {
+                        value = plus.apply(value, delta.value);
+                    }
+                }
+                adopt.accept(value);
+            }
+            meterRegistry.counter(ROUNDS_METRIC, "name", name, "outcome", "adopted").increment();
+            return true;
+        } finally {
+            rounds.remove(monitor, round);
+        }
+    }
+
+    private <T> Pinned<T> pinAndScan(Supplier<T> scan) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        transactionTemplate.setReadOnly(true);
+        for (int attempt = 1; attempt <= pinAttempts; attempt++) {
+            Pinned<T> pinned = transactionTemplate.execute(status -> {
+                long ended = commitsEnded.get();
+                productRepository.pinSnapshot();
+                // every commit started by now had ended before the pin
+                if (commitsStarted.get() != ended) {
+                    return null;
+                }
+                return new Pinned<>(ended, scan.get());
+            });
+            if (pinned != null) {
+                return pinned;
+            }
+            if (!pause(attempt)) {
+                break;
+            }
+        }
+        return null;
+    }
+
+    // waits for writes whose commits are in the scan to deliver their deltas, which the scan already holds
+    private boolean settle(long commits) {
+        long deadline = System.nanoTime() + settleTimeout.toNanos();
+        while (true) {
+            boolean waiting = false;
+            for (Write write : open) {
+                if (write.lastCommit > 0 && write.lastCommit <= commits) {
+                    // a write this thread has open cannot notify while we wait for it
+                    if (write.thread == Thread.currentThread()) {
+                        return false;
+                    }
+                    waiting = true;
+                }
+            }
+            if (!waiting) {
+                return true;
+            }
+            if (System.nanoTime() > deadline || !pause(1)) {
+                return false;
+            }
+        }
+    }
+
+    private boolean skipped(String name, String reason) {
+        meterRegistry.counter(ROUNDS_METRIC, "name", name, "outcome", "skipped").increment();
+        log.info("{} reconciliation skipped, {}", name, reason);
+        return false;
+    }
+
+    private static boolean pause(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /** An open write; close it after its listeners have been notified or once it has failed. */
+    public final class Write implements AutoCloseable {
+        private final Write enclosing;
+        private final Thread thread = Thread.currentThread();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        // number of this write's latest commit, 0 before its first
+        private volatile long lastCommit;
+
+        private Write(Write enclosing) {
+            this.enclosing = enclosing;
+        }
+
+        /** Numbers the commit of the current transaction; call it inside every transaction the write makes. */
+        public void joinTransaction() {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                private boolean committing;
+
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    lastCommit = commitsStarted.incrementAndGet();
+                    committing = true;
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (committing) {
+                        commitsEnded.incrementAndGet();
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                open.remove(this);
+                if (current.get() == this) {
+                    if (enclosing == null) {
+                        current.remove();
+                    } else {
+                        current.set(enclosing);
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Round<T> {
+        // guarded by the listener's monitor
+        private final List<Delta<T>> deltas = new ArrayList<>();
+        private boolean discarded;
+    }
+
+    private static final class Delta<T> {
+        private final Write write;
+        // the commit the delta came from, taken when it was recorded
+        private final long commit;
+        private final T value;
+
+        private Delta(Write write, T value) {
+            this.write = write;
+            this.commit = write == null ? 0 : write.lastCommit;
+            this.value = value;
+        }
+    }
+
+    private static final class Pinned<T> {
+        private final long commits;
+        private final T scanned;
+
+        private Pinned(long commits, T scanned) {
+            this.commits = commits;
+            this.scanned = scanned;
+        }
+    }
+}
@@ -1,14 +1,25 @@
 package com.example.productservice.repository;
 
 import com.example.productservice.entity.Product;
+import com.example.productservice.model.ProductResponse;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+
+import static org.hibernate.annotations.QueryHints.CACHEABLE;
+import static org.hibernate.annotations.QueryHints.CACHE_REGION;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
     /*********************************************************************
      * default                                                           *
      *        - findAll                                                  *
@@ -20,31 +31,131 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
      *        - ...                                                      *
      *********************************************************************/
 
+    /*********************************************************************
+     * projection : the list queries below build ProductResponse          *
+     *              straight from the result set, so no managed Product  *
+     *              (and no dirty-checking snapshot) is created per row  *
+     *********************************************************************/
+    String SELECT_PRODUCT_RESPONSE = "SELECT new com.example.productservice.model.ProductResponse(" +
+            "p.productId, p.productName, p.productDescription, p.productType, p.price, p.quantity, p.version) FROM Product p ";
+
+    /*********************************************************************
+     *                      findAllProductResponses                      *
+     *********************************************************************/
+    @Query(SELECT_PRODUCT_RESPONSE)
+    List<ProductResponse> findAllProductResponses();
+
+    /*********************************************************************
+     *                      findProductAfterProductId (keyset)           *
+     *********************************************************************/
+    @Query(SELECT_PRODUCT_RESPONSE + "WHERE p.productId > :productId ORDER BY p.productId")
+    List<ProductResponse> findProductResponsesAfter(@Param("productId") long productId, Pageable pageable);
+
+    /*********************************************************************
+     *                      findProductResponsesByProductIds             *
+     *********************************************************************/
+    @Query(SELECT_PRODUCT_RESPONSE + "WHERE p.productId IN :productIds")
+    List<ProductResponse> findProductResponsesByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+    /*********************************************************************
+     *                      deleteProductsByProductIds                   *
+     *********************************************************************/
+    @Modifying
+    @Query("DELETE FROM Product p WHERE p.productId IN :productIds")
+    int deleteByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+    /*********************************************************************
+     *                      findQuantityByProductId                      *
+     *********************************************************************/
+    @Query("SELECT p.quantity FROM Product p WHERE p.productId = :productId")
+    Optional<Long> findQuantityByProductId(@Param("productId") long productId);
+
+    /*********************************************************************
+     *                      findProductIdsAfter (keyset)                 *
+     *********************************************************************/
+    @Query("SELECT p.productId FROM Product p WHERE p.productId > :productId ORDER BY p.productId")
+    List<Long> findProductIdsAfter(@Param("productId") long productId, Pageable pageable);
+
+    /*********************************************************************
+     *                      deleteProductsByProductIdRange               *
+     *********************************************************************/
+    @Modifying
+    @Query("DELETE FROM Product p WHERE p.productId BETWEEN :fromProductId AND :toProductId")
+    int deleteByProductIdBetween(@Param("fromProductId") long fromProductId, @Param("toProductId") long toProductId);
 
     /*********************************************************************
      *                      findProductByProductName                     *
      *********************************************************************/
-    List<Product> findProductByProductNameContainsIgnoreCase(String name);
+    @Query(SELECT_PRODUCT_RESPONSE + "WHERE UPPER(p.productName) LIKE %?#{escape([0]).toUpperCase()}% ESCAPE ?#{escapeCharacter()}")
+    List<ProductResponse> findProductByProductNameContainsIgnoreCase(String name);
+
+    /*********************************************************************
+     * query cache : the type and price queries below are cached in the  *
+     *               product-queries region; Hibernate drops their       *
+     *               results whenever the PRODUCT table is written       *
+     *********************************************************************/
 
     /*********************************************************************
      *                      findProductByProductType                     *
      *********************************************************************/
+    @QueryHints({
+            @QueryHint(name = CACHEABLE, value = "true"),
+            @QueryHint(name = CACHE_REGION, value = Product.QUERY_CACHE_REGION)
+    })
     List<Product> findProductByProductType(String productType);
 
     /*********************************************************************
      *                      findProductByPriceBetween                    *
      *********************************************************************/
-    List<Product> findProductByPriceBetween(double minPrice, double maxPrice);
+    @QueryHints({
+            @QueryHint(name = CACHEABLE, value = "true"),
+            @QueryHint(name = CACHE_REGION, value = Product.QUERY_CACHE_REGION)
+    })
+    @Query(SELECT_PRODUCT_RESPONSE + "WHERE p.price BETWEEN :minPrice AND :maxPrice")
+    List<ProductResponse> findProductByPriceBetween(@Param("minPrice") double minPrice, @Param("maxPrice") double maxPrice);
 
     /*********************************************************************
      *                      findProductByPriceGreaterThanEqual           *
      *********************************************************************/
-    List<Product> findProductByPriceGreaterThanEqual(double price);
+    @QueryHints({
+            @QueryHint(name = CACHEABLE, value = "true"),
+            @QueryHint(name = CACHE_REGION, value = Product.QUERY_CACHE_REGION)
+    })
+    @Query(SELECT_PRODUCT_RESPONSE + "WHERE p.price >= :price")
+    List<ProductResponse> findProductByPriceGreaterThanEqual(@Param("price") double price);
 
     /*********************************************************************
      *                      findProductByPriceLessThan                   *
      *********************************************************************/
-    List<Product> findProductByPriceLessThan(double price);
+    @QueryHints({
+            @QueryHint(name = CACHEABLE, value = "true"),
+            @QueryHint(name = CACHE_REGION, value = Product.QUERY_CACHE_REGION)
+    })
+    @Query(SELECT_PRODUCT_RESPONSE + "WHERE p.price < :price")
+    List<ProductResponse> findProductByPriceLessThan(@Param("price") double price);
+
+    /*********************************************************************
+     *                      findProductByPriceBetweenAfter (keyset)      *
+     *********************************************************************/
+    @QueryHints({
+            @QueryHint(name = CACHEABLE, value = "true"),
+            @QueryHint(name = CACHE_REGION, value = Product.QUERY_CACHE_REGION)
+    })
+    @Query(SELECT_PRODUCT_RESPONSE + "WHERE p.price BETWEEN :minPrice AND :maxPrice " +
+            "AND (p.price > :afterPrice OR (p.price = :afterPrice AND p.productId > :afterProductId)) " +
+            "ORDER BY p.price, p.productId")
+    List<ProductResponse> findProductByPriceBetweenAfter(@Param("minPrice") double minPrice, @Param("maxPrice") double maxPrice,
+                                                         @Param("afterPrice") double afterPrice, @Param("afterProductId") long afterProductId,
+                                                         Pageable pageable);
+
+    /*********************************************************************
+     *                      countProductByPriceBetween                   *
+     *********************************************************************/
+    @QueryHints({
+            @QueryHint(name = CACHEABLE, value = "true"),
+            @QueryHint(name = CACHE_REGION, value = Product.QUERY_CACHE_REGION)
+    })
+    long countProductByPriceBetween(double minPrice, double maxPrice);
 
     /*********************************************************************
      *                      getTotalCost                                 *
@@ -53,8 +164,27 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     double getTotal();
 
     /*********************************************************************
-     *                      getRow(s)OfProduct(s)ByProductName           *
+     *                      getTotalCostByProductType                    *
+     *********************************************************************/
+    @Query("SELECT p.productType, SUM(p.price * p.quantity) FROM Product AS p GROUP BY p.productType")
+    List<Object[]> getTotalByProductType();
+
+    /*********************************************************************
+     *                      pinSnapshot                                  *
+     *  A read that matches no row, run first so a REPEATABLE READ      *
+     *  transaction takes its snapshot at a known point.                 *
+     *********************************************************************/
+    @Query("SELECT COUNT(p) FROM Product AS p WHERE p.productId < 0")
+    long pinSnapshot();
+
+    /*********************************************************************
+     *                      backfillProductNameNormalized                *
+     *  Fills PRODUCT_NAME_NORMALIZED for rows that predate the column   *
+     *  or were inserted without it.                                     *
      *********************************************************************/
-    long countProductByProductNameEqualsIgnoreCase(String productName);
+    @Modifying
+    @Query("UPDATE Product p SET p.productNameNormalized = LOWER(p.productName) " +
+            "WHERE p.productNameNormalized IS NULL AND p.productName IS NOT NULL")
+    int backfillProductNameNormalized();
 
 }
@@ -0,0 +1,75 @@
+package com.example.productservice.repository;
+
+import com.example.productservice.entity.Product;
+import com.example.productservice.model.ProductPatchRequest;
+import com.example.productservice.model.ProductResponse;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface ProductRepositoryCustom {
+    /*********************************************************************
+     *                      findProductResponsesAfterCursor (keyset)     *
+     *  Seek page ordered by (fieldName, productId). When lastProductId  *
+     *  is null the first page is returned, otherwise the rows strictly  *
+     *  after (lastValue, lastProductId) in that order.                  *
+     *********************************************************************/
+    List<ProductResponse> findProductResponsesAfterCursor(String fieldName, Sort.Direction direction,
+                                                          Comparable<?> lastValue, Long lastProductId, int limit);
+
+    /*********************************************************************
+     *                      loadAllById (second-level cache first)       *
+     *  The products with the given ids, taken from the persistence      *
+     *  context or the "product" cache region where possible; only the   *
+     *  rest are read, in one IN query. Missing ids are left out.        *
+     *********************************************************************/
+    @Transactional(readOnly = true)
+    List<Product> loadAllById(Collection<Long> productIds);
+
+    /*********************************************************************
+     *                      patchProduct (dynamic, versioned)            *
+     *  One UPDATE that sets only the non-null fields of the patch and   *
+     *  bumps the version, if the row is still at expectedVersion.       *
+     *  Returns the number of rows updated, 0 or 1.                      *
+     *********************************************************************/
+    int patchProduct(long productId, long expectedVersion, ProductPatchRequest patch);
+
+    /*********************************************************************
+     *                      reduceQuantity (conditional update)          *
+     *  Takes quantity off the row if it still has that much in stock    *
+     *  and bumps the version. Only this product is evicted from the     *
+     *  second-level cache, with the cached query results that carry     *
+     *  its quantity. Returns the number of rows updated, 0 or 1.        *
+     *********************************************************************/
+    int reduceQuantity(long productId, long quantity);
+
+    /*********************************************************************
+     *                      decrementQuantity (write-behind flush)       *
+     *  reduceQuantity for the hot-SKU flush, same guard and eviction.   *
+     *********************************************************************/
+    int decrementQuantity(long productId, long quantity);
+
+    /*********************************************************************
+     *                      existsByProductName (case-insensitive)       *
+     *  Limit-1 lookup on the indexed PRODUCT_NAME_NORMALIZED column.    *
+     *********************************************************************/
+    boolean existsByProductName(String productName);
+
+    /*********************************************************************
+     *                      streamAll (forward-only cursor)              *
+     *  Every product in productId order, fetched fetchSize rows per     *
+     *  round trip. Entities are read-only and bypass the second-level   *
+     *  cache; the caller must close the stream inside a transaction.    *
+     *********************************************************************/
+    Stream<Product> streamAll(int fetchSize);
+
+    /*********************************************************************
+     *                      truncateProducts                             *
+     *  TRUNCATE TABLE product, evicting only the Product cache regions  *
+     *  instead of every second-level cache region.                      *
+     *********************************************************************/
+    void truncate();
+}
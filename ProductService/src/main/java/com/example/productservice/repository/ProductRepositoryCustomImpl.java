@@ -0,0 +1,194 @@
+package com.example.productservice.repository;
+
+import com.example.productservice.entity.Product;
+import com.example.productservice.model.ProductPatchRequest;
+import com.example.productservice.model.ProductResponse;
+import org.hibernate.Cache;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.annotations.QueryHints;
+import org.hibernate.query.NativeQuery;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+    private static final String QUANTITY_QUERY_SPACE = "product_quantity";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public List<ProductResponse> findProductResponsesAfterCursor(String fieldName, Sort.Direction direction,
+                                                                 Comparable<?> lastValue, Long lastProductId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductResponse> query = cb.createQuery(ProductResponse.class);
+        Root<Product> product = query.from(Product.class);
+        query.select(cb.construct(ProductResponse.class,
+                product.get("productId"),
+                product.get("productName"),
+                product.get("productDescription"),
+                product.get("productType"),
+                product.get("price"),
+                product.get("quantity"),
+                product.get("version")));
+
+        Path<Comparable> sortKey = product.get(fieldName);
+        Path<Long> productId = product.get("productId");
+        boolean ascending = direction.isAscending();
+
+        if (lastProductId != null) {
+            Predicate afterId = ascending ? cb.greaterThan(productId, lastProductId) : cb.lessThan(productId, lastProductId);
+            if ("productId".equals(fieldName)) {
+                query.where(afterId);
+            } else {
+                Comparable value = lastValue;
+                Predicate afterKey = ascending ? cb.greaterThan(sortKey, value) : cb.lessThan(sortKey, value);
+                query.where(cb.or(afterKey, cb.and(cb.equal(sortKey, value), afterId)));
+            }
+        }
+
+        if ("productId".equals(fieldName)) {
+            query.orderBy(ascending ? cb.asc(productId) : cb.desc(productId));
+        } else {
+            query.orderBy(ascending ? cb.asc(sortKey) : cb.desc(sortKey),
+                    ascending ? cb.asc(productId) : cb.desc(productId));
+        }
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public List<Product> loadAllById(Collection<Long> productIds) {
+        // unlike findAllById's JPQL IN query, multiLoad resolves each id against the second-level cache
+        // first, but only with an explicit cache mode
+        List<Product> products = entityManager.unwrap(Session.class)
+                .byMultipleIds(Product.class)
+                .with(CacheMode.NORMAL)
+                .enableSessionCheck(true)
+                .multiLoad(new ArrayList<>(productIds));
+        return products.stream().filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    @Override
+    public int patchProduct(long productId, long expectedVersion, ProductPatchRequest patch) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Product> update = cb.createCriteriaUpdate(Product.class);
+        Root<Product> product = update.from(Product.class);
+        if (patch.getName() != null) {
+            update.set(product.<String>get("productName"), patch.getName());
+            update.set(product.<String>get("productNameNormalized"), Product.normalizeName(patch.getName()));
+        }
+        if (patch.getDescription() != null) {
+            update.set(product.<String>get("productDescription"), patch.getDescription());
+        }
+        if (patch.getType() != null) {
+            update.set(product.<String>get("productType"), patch.getType());
+        }
+        if (patch.getPrice() != null) {
+            update.set(product.<Double>get("price"), patch.getPrice());
+        }
+        if (patch.getQuantity() != null) {
+            update.set(product.<Long>get("quantity"), patch.getQuantity());
+        }
+        Path<Long> version = product.get("version");
+        update.set(version, cb.sum(version, 1L));
+        update.where(cb.equal(product.get("productId"), productId), cb.equal(version, expectedVersion));
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    @Override
+    public int reduceQuantity(long productId, long quantity) {
+        return takeQuantity(productId, quantity);
+    }
+
+    @Override
+    public int decrementQuantity(long productId, long quantity) {
+        return takeQuantity(productId, quantity);
+    }
+
+    private int takeQuantity(long productId, long quantity) {
+        int updated = entityManager.createNativeQuery("UPDATE product SET quantity = quantity - :quantity, version = version + 1 "
+                        + "WHERE product_id = :productId AND quantity >= :quantity")
+                .unwrap(NativeQuery.class)
+                // a space no entity is mapped to; a JPQL update, or native SQL synchronized on Product,
+                // would evict the whole product region on every order
+                .addSynchronizedQuerySpace(QUANTITY_QUERY_SPACE)
+                .setParameter("productId", productId)
+                .setParameter("quantity", quantity)
+                .executeUpdate();
+        if (updated > 0) {
+            evictQuantity(productId);
+        }
+        return updated;
+    }
+
+    // like Hibernate's own bulk cleanup, once now and again after completion, so that a read racing
+    // the commit cannot leave the old row cached
+    private void evictQuantity(long productId) {
+        Cache cache = entityManager.getEntityManagerFactory().getCache().unwrap(Cache.class);
+        Runnable evict = () -> {
+            cache.evict(Product.class, productId);
+            // the cached price queries return the quantity
+            cache.evictQueryRegion(Product.QUERY_CACHE_REGION);
+        };
+        evict.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict.run();
+                }
+            });
+        }
+    }
+
+    @Override
+    public boolean existsByProductName(String productName) {
+        // rows written behind the service's back may lack the normalized name; MySQL folds
+        // "= ? OR IS NULL" on the same index into a single ref_or_null lookup
+        return !entityManager.createQuery("select p.productId from Product p where p.productNameNormalized = :name"
+                        + " or (p.productNameNormalized is null and lower(p.productName) = :name)", Long.class)
+                .setParameter("name", Product.normalizeName(productName))
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty();
+    }
+
+    @Override
+    public Stream<Product> streamAll(int fetchSize) {
+        // Hibernate streams through a FORWARD_ONLY ScrollableResults, so rows are pulled fetchSize at a time
+        return entityManager.createQuery("select p from Product p order by p.productId", Product.class)
+                .setHint(QueryHints.FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.READ_ONLY, true)
+                .setHint(QueryHints.CACHE_MODE, CacheMode.IGNORE)
+                .getResultStream();
+    }
+
+    @Override
+    public void truncate() {
+        entityManager.createNativeQuery("TRUNCATE TABLE product")
+                .unwrap(NativeQuery.class)
+                // without a query space Hibernate treats native SQL as touching every table
+                .addSynchronizedEntityClass(Product.class)
+                .executeUpdate();
+    }
+}
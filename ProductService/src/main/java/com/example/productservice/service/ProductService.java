@@ -1,31 +1,57 @@
 package com.example.productservice.service;
 
 import com.example.productservice.entity.Product;
+import com.example.productservice.importer.ProductFeed;
+import com.example.productservice.model.BulkDeleteResponse;
+import com.example.productservice.model.BulkInsertResponse;
+import com.example.productservice.model.CacheRegionStatsResponse;
+import com.example.productservice.model.CacheStatsResponse;
+import com.example.productservice.model.InventoryValuationResponse;
+import com.example.productservice.model.ProductCursorPage;
+import com.example.productservice.model.ProductImportProgress;
+import com.example.productservice.model.ProductImportResponse;
+import com.example.productservice.model.ProductPatchRequest;
 import com.example.productservice.model.ProductRequest;
 import com.example.productservice.model.ProductResponse;
+import com.example.productservice.model.WipeStatusResponse;
 import org.springframework.data.domain.Page;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ProductService {
     List<ProductResponse> getProducts();
+    List<ProductResponse> getProductsAfter(long productId, int limit);
+    long exportProducts(int fetchSize, Consumer<ProductResponse> sink);
     List<ProductResponse> getProductsByPriceBetween(double minPrice, double maxPrice);
     List<ProductResponse> getProductsByPriceGreaterThan(double price);
     List<ProductResponse> getProductsByPriceLessThan(double price);
+    ProductCursorPage getProductsByPriceRange(double minPrice, double maxPrice, String cursor, int limit);
+    long countProductsByPriceRange(double minPrice, double maxPrice);
     ProductResponse getProductById(long productId);
+    List<ProductResponse> getProductsByIds(List<Long> productIds);
     List<ProductResponse> getProductsByName(String productName);
     List<ProductResponse> getProductsWithSorting(String fieldName, String sortDirection);
     Page<ProductResponse> getProductsWithPagination(int offset, int limit);
     Page<ProductResponse> getProductsWithSortingAndPagination(String fieldName, String sortDirection, int offset, int limit);
+    ProductCursorPage getProductsAfterCursor(String fieldName, String sortDirection, String cursor, int limit);
     long addProduct(ProductRequest productRequest);
     List<ProductResponse> addProducts(List<ProductRequest> productRequests);
+    BulkInsertResponse bulkInsertProducts(List<ProductRequest> productRequests);
+    ProductImportResponse importProducts(ProductFeed feed, Consumer<ProductImportProgress> progress) throws IOException;
     ProductResponse editProduct(ProductRequest productRequest, long productId);
+    ProductResponse patchProduct(long productId, long expectedVersion, ProductPatchRequest patch);
     String deleteProductById(long productId);
-    String deleteListProducts(List<Long> listIds);
-    String deleteAllProducts();
+    BulkDeleteResponse deleteListProducts(long[] productIds);
+    WipeStatusResponse deleteAllProducts();
+    WipeStatusResponse getDeleteAllProductsStatus();
     long countProducts();
     double total();
+    InventoryValuationResponse getInventoryValuation();
     boolean checkProductByProductId(long productId);
     boolean checkProductByProductName(String productName);
-//    void reduceQuantity(long productId, long quantity);
+    CacheStatsResponse getProductCacheStats();
+    List<CacheRegionStatsResponse> getProductCacheRegionStats();
+    void reduceQuantity(long productId, long quantity);
 }
@@ -1,21 +1,71 @@
 package com.example.productservice.service.impl;
 
+import com.example.productservice.cache.ProductBatchLoader;
+import com.example.productservice.cache.ProductCache;
+import com.example.productservice.cache.RequestCoalescer;
+import com.example.productservice.counter.ProductCounter;
 import com.example.productservice.entity.Product;
 import com.example.productservice.exception.BadRequest400Exception;
+import com.example.productservice.exception.Conflict409Exception;
+import com.example.productservice.exception.NotFound404Exception;
+import com.example.productservice.importer.ProductFeed;
+import com.example.productservice.importer.ProductFeedRow;
+import com.example.productservice.index.ProductChangeListener;
+import com.example.productservice.index.ProductExistenceFilter;
+import com.example.productservice.index.ProductNameIndex;
+import com.example.productservice.index.ProductPriceIndex;
+import com.example.productservice.logging.PayloadLogger;
+import com.example.productservice.maintenance.ProductWipeJob;
+import com.example.productservice.model.BulkDeleteResponse;
+import com.example.productservice.model.BulkInsertResponse;
+import com.example.productservice.model.CacheRegionStatsResponse;
+import com.example.productservice.model.CacheStatsResponse;
+import com.example.productservice.model.InventoryValuationResponse;
+import com.example.productservice.model.ProductCursorPage;
+import com.example.productservice.model.ProductImportError;
+import com.example.productservice.model.ProductImportProgress;
+import com.example.productservice.model.ProductImportResponse;
+import com.example.productservice.model.ProductPatchRequest;
 import com.example.productservice.model.ProductRequest;
 import com.example.productservice.model.ProductResponse;
+import com.example.productservice.model.WipeStatusResponse;
+import com.example.productservice.reconcile.ProductReconciler;
 import com.example.productservice.repository.ProductRepository;
 import com.example.productservice.service.ProductService;
+import com.example.productservice.stock.HotSkuCounters;
+import com.example.productservice.valuation.InventoryValuation;
 import lombok.extern.log4j.Log4j2;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Log4j2
@@ -23,169 +73,289 @@ public class ProductServiceImpl implements ProductService {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private RequestCoalescer requestCoalescer;
+
+    @Autowired
+    private ProductBatchLoader productBatchLoader;
+
+    @Autowired
+    private ProductNameIndex productNameIndex;
+
+    @Autowired
+    private ProductPriceIndex productPriceIndex;
+
+    @Autowired
+    private ProductExistenceFilter productExistenceFilter;
+
+    @Autowired
+    private InventoryValuation inventoryValuation;
+
+    @Autowired
+    private ProductCounter productCounter;
+
+    @Autowired
+    private PayloadLogger payloadLogger;
+
+    @Autowired
+    private ProductWipeJob productWipeJob;
+
+    @Autowired
+    private HotSkuCounters hotSkuCounters;
+
+    @Autowired
+    private List<ProductChangeListener> productChangeListeners;
+
+    @Autowired
+    private ProductReconciler productReconciler;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${product.bulk.chunk-size:1000}")
+    private int bulkChunkSize;
+
+    @Value("${product.bulk.delete-chunk-size:1000}")
+    private int bulkDeleteChunkSize;
+
+    @Value("${product.import.max-errors:100}")
+    private int importMaxErrors;
+
     @Override
     public List<ProductResponse> getProducts() {
-        List<ProductResponse> products = productRepository.findAll().stream()
-                .map(product -> {
-                    ProductResponse response = ProductResponse.builder()
-                            .productId(product.getProductId())
-                            .productName(product.getProductName())
-                            .productDescription(product.getProductDescription())
-                            .productType(product.getProductType())
-                            .price(product.getPrice())
-                            .quantity(product.getQuantity())
-                            .build();
-                    return response;
-                }).collect(Collectors.toList());
-        log.info("Getting list product {}", products);
+        long start = System.nanoTime();
+        List<ProductResponse> products = productRepository.findAllProductResponses();
+        payloadLogger.info(log, start, products, ProductResponse::getProductId, "Getting list product");
         return products;
     }
 
+    @Override
+    public List<ProductResponse> getProductsAfter(long productId, int limit) {
+        List<ProductResponse> productResponses = productRepository.findProductResponsesAfter(productId, PageRequest.of(0, limit));
+        log.debug("Getting {} products after product id {}", productResponses.size(), productId);
+        return productResponses;
+    }
+
+    /**
+     * Hands every product to the sink while a single forward-only cursor walks the table. Each
+     * entity is detached once written, so the persistence context never holds more than one row.
+     */
+    @Override
+    public long exportProducts(int fetchSize, Consumer<ProductResponse> sink) {
+        long start = System.nanoTime();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        Long rows = transactionTemplate.execute(status -> {
+            long count = 0;
+            try (Stream<Product> products = productRepository.streamAll(fetchSize)) {
+                Iterator<Product> iterator = products.iterator();
+                while (iterator.hasNext()) {
+                    Product product = iterator.next();
+                    sink.accept(mapToProductResponse(product));
+                    entityManager.detach(product);
+                    count++;
+                }
+            }
+            return count;
+        });
+        log.info("Exported {} products in {} ms", rows, (System.nanoTime() - start) / 1_000_000);
+        return rows;
+    }
+
     @Override
     public List<ProductResponse> getProductsByPriceBetween(double minPrice, double maxPrice) {
-        List<ProductResponse> productResponses =  productRepository.findProductByPriceBetween(minPrice, maxPrice).stream()
-                .map(product -> {
-                    ProductResponse response = ProductResponse.builder()
-                            .productId(product.getProductId())
-                            .productName(product.getProductName())
-                            .productDescription(product.getProductDescription())
-                            .productType(product.getProductType())
-                            .price(product.getPrice())
-                            .quantity(product.getQuantity())
-                            .build();
-                    return response;
-                }).collect(Collectors.toList());
-        log.info("Getting list product {} with price between {} and {}", productResponses, minPrice, maxPrice);
+        long start = System.nanoTime();
+        List<ProductResponse> productResponses = requestCoalescer.execute("getProductsByPriceBetween", List.of(minPrice, maxPrice),
+                () -> productRepository.findProductByPriceBetween(minPrice, maxPrice));
+        payloadLogger.info(log, start, productResponses, ProductResponse::getProductId, "Getting list product with price between {} and {}", minPrice, maxPrice);
         return productResponses;
     }
 
     @Override
     public List<ProductResponse> getProductsByPriceGreaterThan(double price) {
-        List<ProductResponse> productResponses =  productRepository.findProductByPriceGreaterThanEqual(price).stream()
-                .map(product -> {
-                    ProductResponse response = ProductResponse.builder()
-                            .productId(product.getProductId())
-                            .productName(product.getProductName())
-                            .productDescription(product.getProductDescription())
-                            .productType(product.getProductType())
-                            .price(product.getPrice())
-                            .quantity(product.getQuantity())
-                            .build();
-                    return response;
-                }).collect(Collectors.toList());
-        log.info("Getting list product {} with price greater than {}", productResponses, price);
+        long start = System.nanoTime();
+        List<ProductResponse> productResponses = requestCoalescer.execute("getProductsByPriceGreaterThan", price,
+                () -> productRepository.findProductByPriceGreaterThanEqual(price));
+        payloadLogger.info(log, start, productResponses, ProductResponse::getProductId, "Getting list product with price greater than {}", price);
         return productResponses;
     }
 
     @Override
     public List<ProductResponse> getProductsByPriceLessThan(double price) {
-        List<ProductResponse> productResponses =  productRepository.findProductByPriceLessThan(price).stream()
-                .map(product -> {
-                    ProductResponse response = ProductResponse.builder()
-                            .productId(product.getProductId())
-                            .productName(product.getProductName())
-                            .productDescription(product.getProductDescription())
-                            .productType(product.getProductType())
-                            .price(product.getPrice())
-                            .quantity(product.getQuantity())
-                            .build();
-                    return response;
-                }).collect(Collectors.toList());
-        log.info("Getting list product {} with price less than {}", productResponses, price);
+        long start = System.nanoTime();
+        List<ProductResponse> productResponses = requestCoalescer.execute("getProductsByPriceLessThan", price,
+                () -> productRepository.findProductByPriceLessThan(price));
+        payloadLogger.info(log, start, productResponses, ProductResponse::getProductId, "Getting list product with price less than {}", price);
         return productResponses;
     }
 
+    @Override
+    public ProductCursorPage getProductsByPriceRange(double minPrice, double maxPrice, String cursor, int limit) {
+        // the first page starts just before the cheapest product of the band
+        double afterPrice = minPrice;
+        long afterProductId = Long.MIN_VALUE;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] parts = decodeCursor(cursor, KeysetField.PRICE, Sort.Direction.ASC);
+            try {
+                afterProductId = Long.parseLong(parts[2]);
+                afterPrice = Double.parseDouble(parts[3]);
+            } catch (NumberFormatException ex) {
+                throw new BadRequest400Exception("Cursor is invalid.");
+            }
+        }
+
+        List<ProductResponse> productResponses = productPriceIndex.isEnabled()
+                ? findProductResponsesInOrder(productPriceIndex.findBetweenAfter(minPrice, maxPrice, afterPrice, afterProductId, limit + 1))
+                : productRepository.findProductByPriceBetweenAfter(minPrice, maxPrice, afterPrice, afterProductId, PageRequest.of(0, limit + 1));
+        log.info("Getting {} products with price between {} and {} after cursor {}", productResponses.size(), minPrice, maxPrice, cursor);
+        return toCursorPage(productResponses, KeysetField.PRICE, Sort.Direction.ASC, limit);
+    }
+
+    @Override
+    public long countProductsByPriceRange(double minPrice, double maxPrice) {
+        long count = requestCoalescer.execute("countProductsByPriceRange", List.of(minPrice, maxPrice),
+                () -> productPriceIndex.isEnabled()
+                        ? productPriceIndex.count(minPrice, maxPrice)
+                        : productRepository.countProductByPriceBetween(minPrice, maxPrice));
+        log.info("There are {} products with price between {} and {}", count, minPrice, maxPrice);
+        return count;
+    }
+
     @Override
     public ProductResponse getProductById(long productId) {
-        Product product = productRepository.findById(productId).orElseThrow(() -> new BadRequest400Exception("Product is not found"));
-        ProductResponse productResponse = new ProductResponse();
-        BeanUtils.copyProperties(product, productResponse);
-        log.info("Getting product {} by product id {}", product, productId);
+        ProductResponse productResponse = productCache.get(productId, id -> {
+            if (!productExistenceFilter.mightContainId(id)) {
+                throw new BadRequest400Exception("Product is not found");
+            }
+            ProductResponse loaded = productBatchLoader.load(id);
+            if (loaded == null) {
+                throw new BadRequest400Exception("Product is not found");
+            }
+            log.info("Getting product by product id {}", productId);
+            return loaded;
+        });
+        return withLiveStock(productResponse);
+    }
+
+    @Override
+    public List<ProductResponse> getProductsByIds(List<Long> productIds) {
+        List<Long> candidates = productIds.stream()
+                .distinct()
+                .filter(productExistenceFilter::mightContainId)
+                .collect(Collectors.toList());
+        Map<Long, ProductResponse> products = productCache.getAll(candidates, productBatchLoader::loadAll);
+        log.info("Getting {} of {} products by product ids", products.size(), productIds.size());
+        return candidates.stream()
+                .map(products::get)
+                .filter(Objects::nonNull)
+                .map(this::withLiveStock)
+                .collect(Collectors.toList());
+    }
+
+    // the table lags a hot product's live stock until the next flush
+    private ProductResponse withLiveStock(ProductResponse productResponse) {
+        OptionalLong available = hotSkuCounters.available(productResponse.getProductId());
+        if (available.isPresent()) {
+            return ProductResponse.builder()
+                    .productId(productResponse.getProductId())
+                    .productName(productResponse.getProductName())
+                    .productDescription(productResponse.getProductDescription())
+                    .productType(productResponse.getProductType())
+                    .price(productResponse.getPrice())
+                    .quantity(available.getAsLong())
+                    .version(productResponse.getVersion())
+                    .build();
+        }
         return productResponse;
     }
 
     @Override
     public List<ProductResponse> getProductsByName(String productName) {
-        List<ProductResponse> productResponses = productRepository.findProductByProductNameContainsIgnoreCase(productName).stream()
-                .map(product -> {
-                    ProductResponse response = ProductResponse.builder()
-                            .productId(product.getProductId())
-                            .productName(product.getProductName())
-                            .productDescription(product.getProductDescription())
-                            .productType(product.getProductType())
-                            .price(product.getPrice())
-                            .quantity(product.getQuantity())
-                            .build();
-                    return response;
-                }).collect(Collectors.toList());
-        log.info("Getting list product {} by product name {}", productResponses, productName);
+        long start = System.nanoTime();
+        // the match ignores case, so differently cased names share one flight
+        List<ProductResponse> productResponses = requestCoalescer.execute("getProductsByName", Product.normalizeName(productName), () -> {
+            if (productNameIndex.isEnabled()) {
+                return findProductResponsesInOrder(productNameIndex.search(productName));
+            }
+            return productRepository.findProductByProductNameContainsIgnoreCase(productName);
+        });
+        payloadLogger.info(log, start, productResponses, ProductResponse::getProductId, "Getting list product by product name {}", productName);
         return productResponses;
     }
 
     @Override
     public List<ProductResponse> getProductsWithSorting(String fieldName, String sortDirection) {
+        long start = System.nanoTime();
         Sort.Direction direction = Sort.Direction.ASC;
         if("desc".equalsIgnoreCase(sortDirection)) {
             direction = Sort.Direction.DESC;
         }
         List<ProductResponse> productResponses = productRepository.findAll(Sort.by(direction, fieldName)).stream()
-                .map(product -> {
-                    ProductResponse response = ProductResponse.builder()
-                            .productId(product.getProductId())
-                            .productName(product.getProductName())
-                            .productDescription(product.getProductDescription())
-                            .productType(product.getProductType())
-                            .price(product.getPrice())
-                            .quantity(product.getQuantity())
-                            .build();
-                    return response;
-                }).collect(Collectors.toList());
-        log.info("Getting list product {} by {} {}", productResponses, fieldName, direction);
+                .map(this::mapToProductResponse).collect(Collectors.toList());
+        payloadLogger.info(log, start, productResponses, ProductResponse::getProductId, "Getting list product by {} {}", fieldName, direction);
         return productResponses;
     }
 
     @Override
     public Page<ProductResponse> getProductsWithPagination(int offset, int limit) {
-        Page<ProductResponse> productResponses =  new PageImpl<>(productRepository.findAll(PageRequest.of(offset, limit)).stream()
-                .map(product -> {
-                    ProductResponse response = ProductResponse.builder()
-                            .productId(product.getProductId())
-                            .productName(product.getProductName())
-                            .productDescription(product.getProductDescription())
-                            .productType(product.getProductType())
-                            .price(product.getPrice())
-                            .quantity(product.getQuantity())
-                            .build();
-                    return response;
-                }).collect(Collectors.toList()));
-        log.info("Getting list product {} from {} to {}", productResponses, (offset + 1), (offset + 1) * limit);
+        long start = System.nanoTime();
+        Page<ProductResponse> productResponses =  productRepository.findAll(PageRequest.of(offset, limit))
+                .map(this::mapToProductResponse);
+        payloadLogger.info(log, start, productResponses.getContent(), ProductResponse::getProductId,
+                "Getting list product from {} to {}", (offset + 1), (offset + 1) * limit);
         return productResponses;
     }
 
     @Override
     public Page<ProductResponse> getProductsWithSortingAndPagination(String fieldName, String sortDirection, int offset, int limit) {
+        long start = System.nanoTime();
         Sort.Direction direction = Sort.Direction.ASC;
         if("desc".equalsIgnoreCase(sortDirection)) {
             direction = Sort.Direction.DESC;
         }
-        Page<ProductResponse> productResponses = new PageImpl<>(productRepository.findAll(PageRequest.of(offset, limit).withSort(direction, fieldName)).stream()
-                .map(product -> {
-                    ProductResponse response = ProductResponse.builder()
-                            .productId(product.getProductId())
-                            .productName(product.getProductName())
-                            .productDescription(product.getProductDescription())
-                            .productType(product.getProductType())
-                            .price(product.getPrice())
-                            .quantity(product.getQuantity())
-                            .build();
-                    return response;
-                }).collect(Collectors.toList()));
-        log.info("Getting list product {} from {} to {} with {}", productResponses, (offset + 1), (offset + 1) * limit, sortDirection);
+        Page<ProductResponse> productResponses = productRepository.findAll(PageRequest.of(offset, limit).withSort(direction, fieldName))
+                .map(this::mapToProductResponse);
+        payloadLogger.info(log, start, productResponses.getContent(), ProductResponse::getProductId,
+                "Getting list product from {} to {} with {}", (offset + 1), (offset + 1) * limit, sortDirection);
         return productResponses;
     }
 
+    @Override
+    public ProductCursorPage getProductsAfterCursor(String fieldName, String sortDirection, String cursor, int limit) {
+        KeysetField field = KeysetField.of(fieldName);
+        Sort.Direction direction = Sort.Direction.ASC;
+        if("desc".equalsIgnoreCase(sortDirection)) {
+            direction = Sort.Direction.DESC;
+        }
+
+        Comparable<?> lastValue = null;
+        Long lastProductId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] parts = decodeCursor(cursor, field, direction);
+            try {
+                lastProductId = Long.valueOf(parts[2]);
+                lastValue = field.parser.apply(parts[3]);
+            } catch (NumberFormatException ex) {
+                throw new BadRequest400Exception("Cursor is invalid.");
+            }
+        }
+
+        // one extra row tells us whether another page exists without a COUNT query
+        List<ProductResponse> productResponses = productRepository.findProductResponsesAfterCursor(
+                field.fieldName, direction, lastValue, lastProductId, limit + 1);
+        log.info("Getting {} products by {} {} after cursor {}", productResponses.size(), fieldName, direction, cursor);
+        return toCursorPage(productResponses, field, direction, limit);
+    }
+
     @Override
     public long addProduct(ProductRequest productRequest) {
+        long start = System.nanoTime();
         Product product = Product.builder()
                 .productName(productRequest.getName())
                 .productDescription(productRequest.getDescription())
@@ -194,118 +364,523 @@ public class ProductServiceImpl implements ProductService {
                 .quantity(productRequest.getQuantity())
                 .build();
         log.info("Saving Product ...");
-        productRepository.save(product);
-        log.info("{} is created", product);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        try (ProductReconciler.Write write = productReconciler.startWrite()) {
+            transactionTemplate.executeWithoutResult(status -> {
+                write.joinTransaction();
+                productRepository.save(product);
+            });
+            ProductResponse productResponse = mapToProductResponse(product);
+            payloadLogger.info(log, start, List.of(productResponse), ProductResponse::getProductId, "Product is created");
+            notifyListeners(listener -> listener.onProductsSaved(List.of(productResponse)));
+        }
         return product.getProductId();
     }
 
     @Override
     public List<ProductResponse> addProducts(List<ProductRequest> productRequests) {
-        List<Product> products = productRequests.stream().map(
-                productRequest -> {
-                    Product product = Product.builder()
-                            .productName(productRequest.getName())
-                            .productDescription(productRequest.getDescription())
-                            .productType(productRequest.getType())
-                            .price(productRequest.getPrice())
-                            .quantity(productRequest.getQuantity())
-                            .build();
-                    return product;
-                }).collect(Collectors.toList());
+        long start = System.nanoTime();
+        List<Product> products = productRequests.stream().map(this::mapToProduct).collect(Collectors.toList());
         log.info("Saving Products ...");
-        productRepository.saveAll(products);
-        List<ProductResponse> productResponses = products.stream().map(
-                product -> {
-                    ProductResponse response = ProductResponse.builder()
-                            .productId(product.getProductId())
-                            .productName(product.getProductName())
-                            .productDescription(product.getProductDescription())
-                            .productType(product.getProductType())
-                            .price(product.getPrice())
-                            .quantity(product.getQuantity())
-                            .build();
-                    return response;
-                }).collect(Collectors.toList());
-        log.info("{} have created", products);
-        return productResponses;
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        try (ProductReconciler.Write write = productReconciler.startWrite()) {
+            transactionTemplate.executeWithoutResult(status -> {
+                write.joinTransaction();
+                productRepository.saveAll(products);
+            });
+            List<ProductResponse> productResponses = products.stream()
+                    .map(this::mapToProductResponse).collect(Collectors.toList());
+            payloadLogger.info(log, start, productResponses, ProductResponse::getProductId, "Products have created");
+            notifyListeners(listener -> listener.onProductsSaved(productResponses));
+            return productResponses;
+        }
+    }
+
+    /**
+     * Inserts in chunks of product.bulk.chunk-size rows, one transaction per chunk, so a failure
+     * only rolls back the chunk it happened in; earlier chunks stay committed.
+     */
+    @Override
+    public BulkInsertResponse bulkInsertProducts(List<ProductRequest> productRequests) {
+        long start = System.nanoTime();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        int chunks = 0;
+        for (int from = 0; from < productRequests.size(); from += bulkChunkSize) {
+            saveChunk(transactionTemplate, productRequests.subList(from, Math.min(from + bulkChunkSize, productRequests.size())));
+            chunks++;
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        double rowsPerSecond = elapsedNanos > 0 ? productRequests.size() * 1_000_000_000d / elapsedNanos : 0;
+        log.info("Bulk inserted {} products in {} chunks, {} rows/s", productRequests.size(), chunks, (long) rowsPerSecond);
+        return BulkInsertResponse.builder()
+                .rows(productRequests.size())
+                .chunks(chunks)
+                .elapsedMillis(elapsedNanos / 1_000_000)
+                .rowsPerSecond(rowsPerSecond)
+                .build();
+    }
+
+    /**
+     * Pulls rows from the feed and commits them product.bulk.chunk-size at a time, so only one
+     * chunk is ever held in memory. Rows that do not parse or fail
+     * {@link ProductRequest#isValid} are skipped and counted; the first product.import.max-errors
+     * of them are reported. Chunks already committed stay committed if a later one fails.
+     */
+    @Override
+    public ProductImportResponse importProducts(ProductFeed feed, Consumer<ProductImportProgress> progress) throws IOException {
+        long start = System.nanoTime();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        List<ProductRequest> chunk = new ArrayList<>(bulkChunkSize);
+        List<ProductImportError> errors = new ArrayList<>();
+        long rows = 0;
+        long imported = 0;
+        long rejected = 0;
+        int chunks = 0;
+        ProductFeedRow row;
+        do {
+            row = feed.next();
+            if (row != null) {
+                rows++;
+                ProductRequest productRequest = row.getProduct();
+                String error = row.getError();
+                if(error == null && !ProductRequest.isValid(productRequest)) {
+                    error = "Product data is invalid.";
+                }
+                if (error != null) {
+                    rejected++;
+                    if (errors.size() < importMaxErrors) {
+                        errors.add(new ProductImportError(row.getRow(), error));
+                    }
+                    continue;
+                }
+                chunk.add(productRequest);
+            }
+
+            if (chunk.size() == bulkChunkSize || (row == null && !chunk.isEmpty())) {
+                saveChunk(transactionTemplate, chunk);
+                imported += chunk.size();
+                chunk.clear();
+                chunks++;
+                progress.accept(ProductImportProgress.builder()
+                        .chunk(chunks)
+                        .rows(rows)
+                        .imported(imported)
+                        .rejected(rejected)
+                        .elapsedMillis((System.nanoTime() - start) / 1_000_000)
+                        .build());
+            }
+        } while (row != null);
+
+        long elapsedNanos = System.nanoTime() - start;
+        double rowsPerSecond = elapsedNanos > 0 ? imported * 1_000_000_000d / elapsedNanos : 0;
+        log.info("Imported {} of {} products in {} chunks, {} rejected, {} rows/s", imported, rows, chunks, rejected, (long) rowsPerSecond);
+        return ProductImportResponse.builder()
+                .rows(rows)
+                .imported(imported)
+                .rejected(rejected)
+                .chunks(chunks)
+                .elapsedMillis(elapsedNanos / 1_000_000)
+                .rowsPerSecond(rowsPerSecond)
+                .errors(errors)
+                .build();
+    }
+
+    // inserts one chunk in its own transaction and tells the listeners once it has committed
+    private void saveChunk(TransactionTemplate transactionTemplate, List<ProductRequest> chunk) {
+        try (ProductReconciler.Write write = productReconciler.startWrite()) {
+            List<ProductResponse> productResponses = transactionTemplate.execute(status -> {
+                write.joinTransaction();
+                List<Product> products = chunk.stream().map(this::mapToProduct).collect(Collectors.toList());
+                productRepository.saveAll(products);
+                return products.stream().map(this::mapToProductResponse).collect(Collectors.toList());
+            });
+            // open-in-view keeps one persistence context for the whole request; without this every chunk stays managed
+            entityManager.clear();
+            notifyListeners(listener -> listener.onProductsSaved(productResponses));
+        }
     }
 
     @Override
     public ProductResponse editProduct(ProductRequest productRequest, long productId) {
+        long start = System.nanoTime();
         Product updateProduct = productRepository.findById(productId).orElseThrow(() -> new BadRequest400Exception("Product is not found"));
+        ProductResponse before = mapToProductResponse(updateProduct);
 
-        updateProduct.builder()
-                .productId(updateProduct.getProductId())
-                .productName(productRequest.getName())
-                .productDescription(productRequest.getDescription())
-                .productType(productRequest.getType())
-                .price(productRequest.getPrice())
-                .quantity(productRequest.getQuantity())
-                .build();
+        updateProduct.setProductName(productRequest.getName());
+        updateProduct.setProductDescription(productRequest.getDescription());
+        updateProduct.setProductType(productRequest.getType());
+        updateProduct.setPrice(productRequest.getPrice());
+        updateProduct.setQuantity(productRequest.getQuantity());
 
         log.info("Editing Product ...");
-        productRepository.save(updateProduct);
-        log.info("{} has edited", updateProduct);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        try (ProductReconciler.Write write = productReconciler.startWrite()) {
+            // @DynamicUpdate: only the columns that actually changed are written
+            Product editedProduct = transactionTemplate.execute(status -> {
+                write.joinTransaction();
+                return productRepository.save(updateProduct);
+            });
 
-        ProductResponse productResponse = new ProductResponse();
-        BeanUtils.copyProperties(updateProduct, productResponse);
+            ProductResponse productResponse = new ProductResponse();
+            BeanUtils.copyProperties(editedProduct, productResponse);
+            payloadLogger.info(log, start, List.of(productResponse), ProductResponse::getProductId, "Product has edited");
+            notifyListeners(listener -> listener.onProductUpdated(before, productResponse));
 
-        return productResponse;
+            return productResponse;
+        }
+    }
+
+    /**
+     * One UPDATE of the supplied columns, guarded by the version the client last saw. The row is
+     * read first only to hand listeners the exact before/after pair; because the UPDATE matches
+     * on that same version, the pre-image cannot have changed underneath it.
+     */
+    @Override
+    public ProductResponse patchProduct(long productId, long expectedVersion, ProductPatchRequest patch) {
+        long start = System.nanoTime();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        try (ProductReconciler.Write write = productReconciler.startWrite()) {
+            ProductResponse before = transactionTemplate.execute(status -> {
+                write.joinTransaction();
+                List<ProductResponse> existing = productRepository.findProductResponsesByProductIdIn(List.of(productId));
+                if (existing.isEmpty()) {
+                    throw new NotFound404Exception("Product is not found");
+                }
+                if (existing.get(0).getVersion() != expectedVersion
+                        || productRepository.patchProduct(productId, expectedVersion, patch) == 0) {
+                    log.warn("Product {} is no longer at version {}", productId, expectedVersion);
+                    throw new Conflict409Exception("Product has been modified by another request.");
+                }
+                return existing.get(0);
+            });
+
+            ProductResponse after = ProductResponse.builder()
+                    .productId(productId)
+                    .productName(patch.getName() != null ? patch.getName() : before.getProductName())
+                    .productDescription(patch.getDescription() != null ? patch.getDescription() : before.getProductDescription())
+                    .productType(patch.getType() != null ? patch.getType() : before.getProductType())
+                    .price(patch.getPrice() != null ? patch.getPrice() : before.getPrice())
+                    .quantity(patch.getQuantity() != null ? patch.getQuantity() : before.getQuantity())
+                    .version(expectedVersion + 1)
+                    .build();
+            payloadLogger.info(log, start, List.of(after), ProductResponse::getProductId, "Product has patched");
+            notifyListeners(listener -> listener.onProductUpdated(before, after));
+            return after;
+        }
     }
 
     @Override
     public String deleteProductById(long productId) {
+        long start = System.nanoTime();
+        if (!productExistenceFilter.mightContainId(productId)) {
+            throw new BadRequest400Exception("Product is not found");
+        }
         Product product = productRepository.findById(productId).orElseThrow(() -> new BadRequest400Exception("Product is not found"));
         log.info("Deleting Product ...");
-        productRepository.delete(product);
-        log.info("{} has deleted", product);
+        ProductResponse productResponse = mapToProductResponse(product);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        try (ProductReconciler.Write write = productReconciler.startWrite()) {
+            transactionTemplate.executeWithoutResult(status -> {
+                write.joinTransaction();
+                productRepository.delete(product);
+            });
+            notifyListeners(listener -> listener.onProductsDeleted(List.of(productResponse)));
+        }
+        payloadLogger.info(log, start, List.of(productResponse), ProductResponse::getProductId, "Product has deleted");
         return "Delete product successful";
     }
 
     @Override
-    public String deleteListProducts(List<Long> listIds) {
-        listIds.forEach(id -> deleteProductById(id));
-        return "Delete list product successful";
+    public BulkDeleteResponse deleteListProducts(long[] productIds) {
+        long[] ids = Arrays.stream(productIds).distinct().sorted().toArray();
+        long[] deletedIds = new long[ids.length];
+        long[] missingIds = new long[ids.length];
+        int deleted = 0;
+        int missing = 0;
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        for (int from = 0; from < ids.length; from += bulkDeleteChunkSize) {
+            List<Long> chunk = Arrays.stream(ids, from, Math.min(from + bulkDeleteChunkSize, ids.length))
+                    .boxed().collect(Collectors.toList());
+            // the rows are read first so that listeners see what was removed and missing ids can be reported
+            List<ProductResponse> productResponses;
+            try (ProductReconciler.Write write = productReconciler.startWrite()) {
+                productResponses = transactionTemplate.execute(status -> {
+                    write.joinTransaction();
+                    List<ProductResponse> existing = productRepository.findProductResponsesByProductIdIn(chunk);
+                    if (!existing.isEmpty()) {
+                        productRepository.deleteByProductIdIn(existing.stream()
+                                .map(ProductResponse::getProductId).collect(Collectors.toList()));
+                    }
+                    return existing;
+                });
+                if (!productResponses.isEmpty()) {
+                    notifyListeners(listener -> listener.onProductsDeleted(productResponses));
+                }
+            }
+
+            long[] found = productResponses.stream().mapToLong(ProductResponse::getProductId).sorted().toArray();
+            for (long id : chunk) {
+                if (Arrays.binarySearch(found, id) >= 0) {
+                    deletedIds[deleted++] = id;
+                } else {
+                    missingIds[missing++] = id;
+                }
+            }
+        }
+        log.info("Deleted {} products, {} ids were missing", deleted, missing);
+        return BulkDeleteResponse.builder()
+                .deletedIds(Arrays.copyOf(deletedIds, deleted))
+                .missingIds(Arrays.copyOf(missingIds, missing))
+                .build();
     }
 
     @Override
-    public String deleteAllProducts() {
+    public WipeStatusResponse deleteAllProducts() {
         log.info("Deleting All Products ...");
-        productRepository.deleteAll();
-        log.info("All Products have been deleted ...");
-        return "Delete all products successful";
+        WipeStatusResponse status = productWipeJob.start();
+        log.info("Deleting all products is {}", status.getState());
+        return status;
+    }
+
+    @Override
+    public WipeStatusResponse getDeleteAllProductsStatus() {
+        return productWipeJob.status();
     }
 
     @Override
     public long countProducts() {
-        long size = productRepository.count();
+        long size = productCounter.isEnabled() ? productCounter.get() : productRepository.count();
         log.info("There are {} products in db", size);
         return size;
     }
 
     @Override
     public double total() {
-        double totalPrice = productRepository.getTotal();
+        double totalPrice = inventoryValuation.isEnabled()
+                ? inventoryValuation.get().getTotal()
+                : productRepository.getTotal();
         log.info("Total cost {}", totalPrice);
         return totalPrice;
     }
 
+    @Override
+    public InventoryValuationResponse getInventoryValuation() {
+        if (inventoryValuation.isEnabled()) {
+            return inventoryValuation.get();
+        }
+        Map<String, Double> byProductType = new HashMap<>();
+        productRepository.getTotalByProductType().forEach(row -> byProductType.put((String) row[0], (Double) row[1]));
+        return InventoryValuationResponse.builder()
+                .total(byProductType.values().stream().mapToDouble(Double::doubleValue).sum())
+                .byProductType(byProductType)
+                .build();
+    }
+
     @Override
     public boolean checkProductByProductId(long productId) {
-        boolean isExisted = productRepository.existsById(productId);
+        // a definite miss in the existence filter or a second-level cache hit answers without a round trip;
+        // findById reads through that cache, whereas Cache.contains also reports the soft lock a delete leaves
+        boolean isExisted = productExistenceFilter.mightContainId(productId)
+                && productRepository.findById(productId).isPresent();
         log.info("Product with id {} is {} existed", productId, isExisted ? "" : "not");
         return isExisted;
     }
 
     @Override
     public boolean checkProductByProductName(String productName) {
-        boolean isExisted = productRepository.countProductByProductNameEqualsIgnoreCase(productName) > 0;
+        boolean isExisted = productRepository.existsByProductName(productName);
         log.info("Product with name {} is {} existed", productName, isExisted ? "" : "not");
         return isExisted;
     }
 
-//    @Override
-//    public void reduceQuantity(long productId, long quantity) {
-//
-//    }
+    @Override
+    public CacheStatsResponse getProductCacheStats() {
+        return productCache.stats();
+    }
+
+    @Override
+    public List<CacheRegionStatsResponse> getProductCacheRegionStats() {
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        CacheRegionStatistics entityRegion = statistics.getDomainDataRegionStatistics(Product.CACHE_REGION);
+        CacheRegionStatistics queryRegion = statistics.getQueryRegionStatistics(Product.QUERY_CACHE_REGION);
+        return List.of(mapToCacheRegionStatsResponse(entityRegion), mapToCacheRegionStatsResponse(queryRegion));
+    }
+
+    private CacheRegionStatsResponse mapToCacheRegionStatsResponse(CacheRegionStatistics region) {
+        long lookups = region.getHitCount() + region.getMissCount();
+        return CacheRegionStatsResponse.builder()
+                .region(region.getRegionName())
+                .size(region.getElementCountInMemory())
+                .hitCount(region.getHitCount())
+                .missCount(region.getMissCount())
+                .putCount(region.getPutCount())
+                .hitRate(lookups == 0 ? 1.0 : (double) region.getHitCount() / lookups)
+                .build();
+    }
+
+    // loads the given products and returns them in the order of productIds, skipping ids that no longer exist
+    private List<ProductResponse> findProductResponsesInOrder(List<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, ProductResponse> products = productRepository.findProductResponsesByProductIdIn(productIds).stream()
+                .collect(Collectors.toMap(ProductResponse::getProductId, Function.identity()));
+        return productIds.stream()
+                .map(products::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private void notifyListeners(Consumer<ProductChangeListener> event) {
+        productChangeListeners.forEach(event);
+    }
+
+    // productResponses holds up to limit + 1 rows; the extra row tells whether another page exists
+    private ProductCursorPage toCursorPage(List<ProductResponse> productResponses, KeysetField field, Sort.Direction direction, int limit) {
+        boolean hasNext = productResponses.size() > limit;
+        String nextCursor = null;
+        if (hasNext) {
+            productResponses = productResponses.subList(0, limit);
+            ProductResponse last = productResponses.get(limit - 1);
+            nextCursor = encodeCursor(field.fieldName, direction.name(),
+                    String.valueOf(last.getProductId()), String.valueOf(field.accessor.apply(last)));
+        }
+        return ProductCursorPage.builder()
+                .products(productResponses)
+                .nextCursor(nextCursor)
+                .hasNext(hasNext)
+                .build();
+    }
+
+    // cursor = base64url("fieldName:direction:productId:lastValue"); lastValue goes last since names may contain ':'
+    private String encodeCursor(String... parts) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.join(":", parts).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor, KeysetField field, Sort.Direction direction) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", 4);
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequest400Exception("Cursor is invalid.");
+        }
+        if (parts.length != 4) {
+            throw new BadRequest400Exception("Cursor is invalid.");
+        }
+        if (!parts[0].equals(field.fieldName) || !parts[1].equals(direction.name())) {
+            throw new BadRequest400Exception("Cursor does not match the requested sort.");
+        }
+        return parts;
+    }
+
+    /**
+     * Columns a keyset page can be ordered by. Only non-null columns are allowed,
+     * since a NULL sort key can never compare greater than the cursor and would be skipped.
+     */
+    private enum KeysetField {
+        PRODUCT_ID("productId", ProductResponse::getProductId, Long::valueOf),
+        PRODUCT_NAME("productName", ProductResponse::getProductName, value -> value),
+        PRODUCT_TYPE("productType", ProductResponse::getProductType, value -> value),
+        PRICE("price", ProductResponse::getPrice, Double::valueOf),
+        QUANTITY("quantity", ProductResponse::getQuantity, Long::valueOf);
+
+        private final String fieldName;
+        private final Function<ProductResponse, Object> accessor;
+        private final Function<String, Comparable<?>> parser;
+
+        KeysetField(String fieldName, Function<ProductResponse, Object> accessor, Function<String, Comparable<?>> parser) {
+            this.fieldName = fieldName;
+            this.accessor = accessor;
+            this.parser = parser;
+        }
+
+        static KeysetField of(String fieldName) {
+            return Arrays.stream(values())
+                    .filter(field -> field.fieldName.equals(fieldName))
+                    .findFirst()
+                    .orElseThrow(() -> new BadRequest400Exception("Product can not be sorted by " + fieldName + "."));
+        }
+    }
+
+    // hot products are decremented in memory and written back by HotSkuCounters.flush()
+    private void reduceHotQuantity(long productId, long quantity) {
+        switch (hotSkuCounters.reserve(productId, quantity)) {
+            case NOT_FOUND:
+                log.warn("Product {} is not found for reducing quantity", productId);
+                throw new NotFound404Exception("Product is not found");
+            case INSUFFICIENT:
+                log.warn("Product {} does not have {} in stock", productId, quantity);
+                throw new Conflict409Exception("Product does not have sufficient quantity");
+            default:
+                log.debug("Reserved {} of hot product {}", quantity, productId);
+        }
+    }
+
+    private Product mapToProduct(ProductRequest productRequest) {
+        return Product.builder()
+                .productName(productRequest.getName())
+                .productDescription(productRequest.getDescription())
+                .productType(productRequest.getType())
+                .price(productRequest.getPrice())
+                .quantity(productRequest.getQuantity())
+                .build();
+    }
+
+    private ProductResponse mapToProductResponse(Product product) {
+        return ProductResponse.builder()
+                .productId(product.getProductId())
+                .productName(product.getProductName())
+                .productDescription(product.getProductDescription())
+                .productType(product.getProductType())
+                .price(product.getPrice())
+                .quantity(product.getQuantity())
+                .version(product.getVersion())
+                .build();
+    }
+
+    /**
+     * Takes stock with one conditional UPDATE, so concurrent orders cannot oversell and the row
+     * lock lasts a single statement. Only when no row was updated is the product looked up again,
+     * to tell a missing product (404) from insufficient stock (409).
+     */
+    @Override
+    public void reduceQuantity(long productId, long quantity) {
+        if (hotSkuCounters.isHot(productId)) {
+            reduceHotQuantity(productId, quantity);
+            return;
+        }
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        try (ProductReconciler.Write write = productReconciler.startWrite()) {
+            Integer updated = transactionTemplate.execute(status -> {
+                write.joinTransaction();
+                return productRepository.reduceQuantity(productId, quantity);
+            });
+            if (updated == null || updated == 0) {
+                if (!productRepository.existsById(productId)) {
+                    log.warn("Product {} is not found for reducing quantity", productId);
+                    throw new NotFound404Exception("Product is not found");
+                }
+                log.warn("Product {} does not have {} in stock", productId, quantity);
+                throw new Conflict409Exception("Product does not have sufficient quantity");
+            }
+            log.info("Reduced quantity of product {} by {}", productId, quantity);
+
+            // read after commit: the delta is exact even if other orders have landed in between
+            List<ProductResponse> productResponses = productRepository.findProductResponsesByProductIdIn(List.of(productId));
+            if (!productResponses.isEmpty()) {
+                ProductResponse after = productResponses.get(0);
+                ProductResponse before = ProductResponse.builder()
+                        .productId(after.getProductId())
+                        .productName(after.getProductName())
+                        .productDescription(after.getProductDescription())
+                        .productType(after.getProductType())
+                        .price(after.getPrice())
+                        .quantity(after.getQuantity() + quantity)
+                        .build();
+                notifyListeners(listener -> listener.onProductUpdated(before, after));
+            }
+        }
+    }
 }
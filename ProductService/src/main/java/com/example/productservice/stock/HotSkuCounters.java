@@ -0,0 +1,301 @@
+package com.example.productservice.stock;
+
+import com.example.productservice.exception.InternalServerError500Exception;
+import com.example.productservice.index.ProductChangeListener;
+import com.example.productservice.model.ProductResponse;
+import com.example.productservice.reconcile.ProductReconciler;
+import com.example.productservice.repository.ProductRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hot-SKU mode for reduceQuantity, enabled by product.hot-sku.enabled for the products listed in
+ * product.hot-sku.product-ids.
+ *
+ * The stock of a hot product lives in a {@link StripedStockCounter} loaded from the table on first
+ * use, so a reservation is a CAS on one of several stripes instead of a wait on the row lock.
+ * Each reservation is group-committed to a {@link ReservationJournal} before it is acknowledged,
+ * and {@link #flush()} writes the accumulated decrements back to PRODUCT.quantity every
+ * product.hot-sku.flush-interval, one UPDATE per product. Journal segments still on disk at
+ * start-up are applied before the first flush; a crash between a flush's commit and the deletion
+ * of its segment replays that segment again, which can only under-count stock, never oversell it.
+ *
+ * Writes to a hot product made through the service (edits, deletes) drop its counter, which is
+ * reloaded from the table minus the reservations not flushed yet. Dropping a counter waits for the
+ * reservations taken on it to reach the journal, so none of them is missed by the reload.
+ *
+ * Counters are per instance and nothing coordinates them: with several ProductService replicas each
+ * one sells against the stock it loaded, so together they can sell the same units twice. Only enable
+ * hot-SKU mode where a single instance serves reduceQuantity for the listed products. The flush never
+ * takes a row below zero; reservations it cannot write are logged and dropped.
+ */
+@Component
+@Log4j2
+public class HotSkuCounters implements ProductChangeListener {
+    public enum Reservation { RESERVED, INSUFFICIENT, NOT_FOUND }
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // does not include this bean
+    @Autowired
+    private List<ProductChangeListener> productChangeListeners;
+
+    @Autowired
+    private ProductReconciler productReconciler;
+
+    @Value("${product.hot-sku.enabled:false}")
+    private boolean enabled;
+
+    @Value("${product.hot-sku.product-ids:}")
+    private Set<Long> hotProductIds;
+
+    @Value("${product.hot-sku.stripes:0}")
+    private int stripes;
+
+    @Value("${product.hot-sku.journal-directory:hot-sku-journal}")
+    private String journalDirectory;
+
+    @Value("${product.hot-sku.journal-fsync:true}")
+    private boolean journalFsync;
+
+    private final Map<Long, StripedStockCounter> counters = new ConcurrentHashMap<>();
+    private final Object flushLock = new Object();
+    private ReservationJournal journal;
+    // guarded by flushLock
+    private final List<Path> unflushedSegments = new ArrayList<>();
+    private Map<Long, Long> inFlight = Map.of();
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        if (stripes < 1) {
+            stripes = Runtime.getRuntime().availableProcessors();
+        }
+        Path directory = Paths.get(journalDirectory);
+        // segments from a previous run are applied once the application is ready
+        unflushedSegments.addAll(ReservationJournal.segments(directory));
+        journal = new ReservationJournal(directory, journalFsync);
+        log.info("Hot SKU mode on for products {} with {} stripes", hotProductIds, stripes);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        synchronized (flushLock) {
+            if (unflushedSegments.isEmpty()) {
+                return;
+            }
+            Map<Long, Long> totals = ReservationJournal.replay(unflushedSegments);
+            log.info("Replaying {} journaled hot SKU reservations from {} segments", totals.size(), unflushedSegments.size());
+            journal.restore(totals);
+        }
+        flush();
+    }
+
+    public boolean isHot(long productId) {
+        return enabled && hotProductIds.contains(productId);
+    }
+
+    public Reservation reserve(long productId, long quantity) {
+        while (true) {
+            StripedStockCounter counter = counters.computeIfAbsent(productId, this::loadCounter);
+            if (counter == null) {
+                return Reservation.NOT_FOUND;
+            }
+            int slot = counter.enter();
+            if (slot < 0) {
+                // dropped since it was looked up; its replacement loads once this one's reservations are journaled
+                continue;
+            }
+            try {
+                if (!counter.tryReserve(quantity)) {
+                    return Reservation.INSUFFICIENT;
+                }
+                try {
+                    journal.append(productId, quantity).join();
+                } catch (CompletionException ex) {
+                    counter.release(quantity);
+                    throw new InternalServerError500Exception("Reservation could not be recorded.");
+                }
+                return Reservation.RESERVED;
+            } finally {
+                counter.exit(slot);
+            }
+        }
+    }
+
+    /** Live stock of a hot product whose counter is loaded. */
+    public OptionalLong available(long productId) {
+        StripedStockCounter counter = enabled ? counters.get(productId) : null;
+        return counter == null ? OptionalLong.empty() : OptionalLong.of(counter.available());
+    }
+
+    @Scheduled(fixedDelayString = "${product.hot-sku.flush-interval:PT1S}")
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+        try (ProductReconciler.Write write = productReconciler.startWrite()) {
+            writeBack(write);
+        }
+    }
+
+    private void writeBack(ProductReconciler.Write write) {
+        Map<Long, Long> flushed;
+        Set<Long> rejected = Set.of();
+        synchronized (flushLock) {
+            ReservationJournal.Drained drained;
+            try {
+                drained = journal.drain();
+            } catch (IOException ex) {
+                log.error("Rotating the hot SKU journal failed", ex);
+                return;
+            }
+            if (drained.segment != null) {
+                unflushedSegments.add(drained.segment);
+            }
+            flushed = drained.totals;
+            if (!flushed.isEmpty()) {
+                inFlight = flushed;
+                try {
+                    rejected = new TransactionTemplate(transactionManager).execute(status -> {
+                        write.joinTransaction();
+                        Set<Long> notApplied = new HashSet<>();
+                        flushed.forEach((productId, quantity) -> {
+                            if (productRepository.decrementQuantity(productId, quantity) == 0) {
+                                notApplied.add(productId);
+                            }
+                        });
+                        return notApplied;
+                    });
+                } catch (RuntimeException ex) {
+                    log.error("Flushing hot SKU reservations {} failed, retrying next round", flushed, ex);
+                    journal.restore(flushed);
+                    return;
+                } finally {
+                    inFlight = Map.of();
+                }
+            }
+            // everything in these segments is now either committed or was never written
+            for (Path segment : unflushedSegments) {
+                try {
+                    Files.deleteIfExists(segment);
+                } catch (IOException ex) {
+                    log.warn("Could not delete journal segment {}", segment, ex);
+                }
+            }
+            unflushedSegments.clear();
+        }
+        if (flushed.isEmpty()) {
+            return;
+        }
+        log.debug("Flushed hot SKU reservations {}", flushed);
+
+        // the row went away or its stock was taken by someone else, e.g. another instance; the units were
+        // already promised, but writing them would drive the quantity negative, so they are dropped
+        for (Long productId : rejected) {
+            log.error("Hot SKU flush dropped {} reserved units of product {}: {}", flushed.get(productId), productId,
+                    productRepository.findQuantityByProductId(productId)
+                            .map(quantity -> "only " + quantity + " left in the table")
+                            .orElse("the product no longer exists"));
+            // reloaded from the table on the next reservation
+            drop(productId);
+        }
+        Set<Long> applied = new HashSet<>(flushed.keySet());
+        applied.removeAll(rejected);
+        if (applied.isEmpty()) {
+            return;
+        }
+
+        // listeners follow the table, not the counters
+        for (ProductResponse after : productRepository.findProductResponsesByProductIdIn(applied)) {
+            ProductResponse before = ProductResponse.builder()
+                    .productId(after.getProductId())
+                    .productName(after.getProductName())
+                    .productDescription(after.getProductDescription())
+                    .productType(after.getProductType())
+                    .price(after.getPrice())
+                    .quantity(after.getQuantity() + flushed.get(after.getProductId()))
+                    .build();
+            productChangeListeners.forEach(listener -> listener.onProductUpdated(before, after));
+        }
+    }
+
+    @Override
+    public void onProductsSaved(List<ProductResponse> products) {
+        products.forEach(product -> drop(product.getProductId()));
+    }
+
+    @Override
+    public void onProductsDeleted(List<ProductResponse> products) {
+        products.forEach(product -> drop(product.getProductId()));
+    }
+
+    @Override
+    public void onProductUpdated(ProductResponse before, ProductResponse after) {
+        drop(after.getProductId());
+    }
+
+    @Override
+    public void onAllProductsDeleted() {
+        counters.keySet().forEach(this::drop);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        // reservations still queued after this flush stay in the journal and are replayed on the next start
+        flush();
+        journal.close();
+    }
+
+    // a reservation taken on the counter but not journaled yet is in neither the table nor the journal, so the
+    // counter is retired inside the map's lock for its key: the next one cannot load until those are journaled
+    private void drop(long productId) {
+        counters.computeIfPresent(productId, (id, counter) -> {
+            counter.retire();
+            return null;
+        });
+    }
+
+    private StripedStockCounter loadCounter(long productId) {
+        synchronized (flushLock) {
+            return productRepository.findQuantityByProductId(productId)
+                    .map(quantity -> new StripedStockCounter(
+                            quantity - journal.pending(productId) - inFlight.getOrDefault(productId, 0L), stripes))
+                    .orElse(null);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.productservice.stock;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of hot-SKU reservations that have not reached the PRODUCT table yet.
+ *
+ * Reservations are queued and written by a single thread, which group-commits whatever has piled
+ * up since its last write (with an fsync when {@code fsync} is set) before completing their
+ * futures. The journal is split into numbered segments; {@link #drain()} starts a new segment and
+ * hands over the totals of the closed one, which can be deleted once those totals are committed.
+ * Segments left behind by a crash are summed by {@link #replay(List)} on the next start.
+ */
+@Log4j2
+final class ReservationJournal {
+    private static final String SEGMENT_PREFIX = "reservations-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final boolean fsync;
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    // guarded by this
+    private final Map<Long, Long> pending = new HashMap<>();
+    private FileChannel channel;
+    private Path segment;
+    private long segmentNumber;
+
+    ReservationJournal(Path directory, boolean fsync) throws IOException {
+        this.directory = directory;
+        this.fsync = fsync;
+        Files.createDirectories(directory);
+        this.segmentNumber = segments(directory).stream()
+                .mapToLong(ReservationJournal::segmentNumber)
+                .max().orElse(0) + 1;
+        openSegment();
+        this.writer = new Thread(this::writeLoop, "hot-sku-journal");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /** Completes once the reservation is on disk. */
+    CompletableFuture<Void> append(long productId, long quantity) {
+        Entry entry = new Entry(productId, quantity);
+        queue.add(entry);
+        return entry.written;
+    }
+
+    synchronized long pending(long productId) {
+        return pending.getOrDefault(productId, 0L);
+    }
+
+    /**
+     * Closes the current segment and returns it with the per-product totals written to it
+     * (plus anything handed back through {@link #restore(Map)}). Returns an empty segment
+     * when nothing was written since the last drain.
+     */
+    synchronized Drained drain() throws IOException {
+        Map<Long, Long> drained = new HashMap<>(pending);
+        pending.clear();
+        if (channel.position() == 0) {
+            return new Drained(drained, null);
+        }
+        channel.close();
+        Path closed = segment;
+        segmentNumber++;
+        openSegment();
+        return new Drained(drained, closed);
+    }
+
+    /** Puts back totals whose flush failed, so the next drain retries them. */
+    synchronized void restore(Map<Long, Long> totals) {
+        totals.forEach((productId, quantity) -> pending.merge(productId, quantity, Long::sum));
+    }
+
+    void close() throws IOException {
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            boolean empty = channel.size() == 0;
+            channel.close();
+            if (empty) {
+                Files.deleteIfExists(segment);
+            }
+        }
+    }
+
+    static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    static Map<Long, Long> replay(List<Path> segments) throws IOException {
+        Map<Long, Long> totals = new HashMap<>();
+        for (Path file : segments) {
+            for (String line : Files.readAllLines(file, StandardCharsets.US_ASCII)) {
+                int comma = line.indexOf(',');
+                // a torn last line from a crash mid-write never completed its reservation
+                if (comma < 0) {
+                    continue;
+                }
+                try {
+                    totals.merge(Long.parseLong(line.substring(0, comma)), Long.parseLong(line.substring(comma + 1)), Long::sum);
+                } catch (NumberFormatException ex) {
+                    log.warn("Skipping unreadable journal line '{}' in {}", line, file);
+                }
+            }
+        }
+        return totals;
+    }
+
+    private void writeLoop() {
+        List<Entry> batch = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch);
+                write(batch);
+                batch.forEach(entry -> entry.written.complete(null));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException ex) {
+                log.error("Writing {} reservations to the journal failed", batch.size(), ex);
+                batch.forEach(entry -> entry.written.completeExceptionally(ex));
+            }
+            batch.clear();
+        }
+    }
+
+    private synchronized void write(List<Entry> batch) throws IOException {
+        StringBuilder lines = new StringBuilder(batch.size() * 16);
+        batch.forEach(entry -> lines.append(entry.productId).append(',').append(entry.quantity).append('\n'));
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.US_ASCII));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        if (fsync) {
+            channel.force(false);
+        }
+        batch.forEach(entry -> pending.merge(entry.productId, entry.quantity, Long::sum));
+    }
+
+    private void openSegment() throws IOException {
+        segment = directory.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, segmentNumber, SEGMENT_SUFFIX));
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static long segmentNumber(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (RuntimeException ex) {
+            return 0;
+        }
+    }
+
+    static final class Drained {
+        final Map<Long, Long> totals;
+        final Path segment;
+
+        Drained(Map<Long, Long> totals, Path segment) {
+            this.totals = totals;
+            this.segment = segment;
+        }
+    }
+
+    private static final class Entry {
+        final long productId;
+        final long quantity;
+        final CompletableFuture<Void> written = new CompletableFuture<>();
+
+        Entry(long productId, long quantity) {
+            this.productId = productId;
+            this.quantity = quantity;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.productservice.stock;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Available stock of one product split over several stripes, so concurrent decrements mostly
+ * CAS different cache lines instead of all spinning on one.
+ *
+ * A reservation takes its whole quantity from a single stripe. Only when no stripe can cover it
+ * does it fall back to {@link #rebalanceAndReserve(long)}, which gathers every stripe under a lock,
+ * so a request is never refused while the stripes together still hold enough.
+ *
+ * A reservation is held open with {@link #enter()} until it is journaled. {@link #retire()} turns
+ * new ones away and waits for the open ones, so a counter loaded after it sees all of them in the
+ * journal. The open count is striped too, on the second long of each stripe's cache line.
+ */
+final class StripedStockCounter {
+    // longs between two stripes; 8 longs = 64 bytes keeps each stripe on its own cache line
+    private static final int PADDING = 8;
+    // offset within a stripe of its count of open reservations
+    private static final int OPEN = 1;
+
+    private final AtomicLongArray cells;
+    private final int stripes;
+    private volatile boolean retired;
+
+    StripedStockCounter(long quantity, int stripes) {
+        this.stripes = stripes;
+        this.cells = new AtomicLongArray(stripes * PADDING);
+        spread(quantity);
+    }
+
+    boolean tryReserve(long quantity) {
+        int start = ThreadLocalRandom.current().nextInt(stripes);
+        for (int i = 0; i < stripes; i++) {
+            int index = ((start + i) % stripes) * PADDING;
+            long available;
+            while ((available = cells.get(index)) >= quantity) {
+                if (cells.compareAndSet(index, available, available - quantity)) {
+                    return true;
+                }
+            }
+        }
+        return rebalanceAndReserve(quantity);
+    }
+
+    /** Gives back a reservation that could not be completed. */
+    void release(long quantity) {
+        cells.addAndGet(ThreadLocalRandom.current().nextInt(stripes) * PADDING, quantity);
+    }
+
+    /**
+     * Opens a reservation, to be closed with {@link #exit(int)} once it is journaled or released.
+     * Returns the slot it is counted in, or -1 when the counter has been retired.
+     */
+    int enter() {
+        int slot = ThreadLocalRandom.current().nextInt(stripes) * PADDING + OPEN;
+        cells.incrementAndGet(slot);
+        if (retired) {
+            cells.decrementAndGet(slot);
+            return -1;
+        }
+        return slot;
+    }
+
+    void exit(int slot) {
+        cells.decrementAndGet(slot);
+    }
+
+    /** Turns new reservations away and waits until every open one has been closed. */
+    void retire() {
+        retired = true;
+        // a slot only ever counts up and down for the same reservation, so one pass reading zeros is final
+        while (open() > 0) {
+            LockSupport.parkNanos(100_000);
+        }
+    }
+
+    long available() {
+        long total = 0;
+        for (int i = 0; i < stripes; i++) {
+            total += cells.get(i * PADDING);
+        }
+        return total;
+    }
+
+    private long open() {
+        long total = 0;
+        for (int i = 0; i < stripes; i++) {
+            total += cells.get(i * PADDING + OPEN);
+        }
+        return total;
+    }
+
+    private synchronized boolean rebalanceAndReserve(long quantity) {
+        long total = 0;
+        for (int i = 0; i < stripes; i++) {
+            total += cells.getAndSet(i * PADDING, 0);
+        }
+        boolean reserved = total >= quantity;
+        spread(reserved ? total - quantity : total);
+        return reserved;
+    }
+
+    private void spread(long quantity) {
+        long share = quantity / stripes;
+        long remainder = quantity % stripes;
+        for (int i = 0; i < stripes; i++) {
+            cells.addAndGet(i * PADDING, share + (i < remainder ? 1 : 0));
+        }
+    }
+}
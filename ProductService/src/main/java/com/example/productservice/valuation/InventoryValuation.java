@@ -0,0 +1,220 @@
+package com.example.productservice.valuation;
+
+import com.example.productservice.index.ProductChangeListener;
+import com.example.productservice.model.InventoryValuationResponse;
+import com.example.productservice.model.ProductResponse;
+import com.example.productservice.reconcile.ProductReconciler;
+import com.example.productservice.repository.ProductRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Running inventory value, SUM(price * quantity), overall and per productType.
+ *
+ * Every write made through ProductServiceImpl applies its delta here, so reads are a field
+ * access instead of a table scan. Sums are kept as BigDecimal so that adding and removing the
+ * same product leaves no rounding residue. Rows changed outside this service are picked up by
+ * {@link #reconcile()}, which re-runs the scan on a fixed delay and replaces the running value
+ * when the two have drifted apart. The first scan goes through the same {@link ProductReconciler}
+ * round, so a write that commits while the table is scanned is not counted again when it notifies.
+ */
+@Component
+@Log4j2
+public class InventoryValuation implements ProductChangeListener {
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductReconciler productReconciler;
+
+    @Value("${product.valuation.enabled:false}")
+    private boolean enabled;
+
+    @Value("${product.valuation.tolerance:0.01}")
+    private double tolerance;
+
+    private final Map<String, BigDecimal> subtotals = new HashMap<>();
+    private BigDecimal total = BigDecimal.ZERO;
+    private volatile boolean loaded;
+    // serializes loads without holding the monitor, which writers need while a load waits on them
+    private final Object loadLock = new Object();
+
+    // published on every change so readers never take the lock
+    private volatile InventoryValuationResponse valuation;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public InventoryValuationResponse get() {
+        InventoryValuationResponse current;
+        // a wipe between the load and the read unpublishes it again
+        while ((current = valuation) == null) {
+            load();
+        }
+        return current;
+    }
+
+    @Override
+    public synchronized void onProductsSaved(List<ProductResponse> products) {
+        if (!enabled) {
+            return;
+        }
+        Map<String, BigDecimal> delta = new HashMap<>();
+        products.forEach(product -> add(delta, product, 1));
+        change(delta);
+    }
+
+    @Override
+    public synchronized void onProductsDeleted(List<ProductResponse> products) {
+        if (!enabled) {
+            return;
+        }
+        Map<String, BigDecimal> delta = new HashMap<>();
+        products.forEach(product -> add(delta, product, -1));
+        change(delta);
+    }
+
+    @Override
+    public synchronized void onProductUpdated(ProductResponse before, ProductResponse after) {
+        if (!enabled) {
+            return;
+        }
+        Map<String, BigDecimal> delta = new HashMap<>();
+        add(delta, before, -1);
+        add(delta, after, 1);
+        change(delta);
+    }
+
+    @Override
+    public synchronized void onAllProductsDeleted() {
+        if (!enabled) {
+            return;
+        }
+        // rescanned on the next read, which also takes in rows that survived a chunked wipe
+        subtotals.clear();
+        total = BigDecimal.ZERO;
+        loaded = false;
+        valuation = null;
+        productReconciler.discard(this);
+    }
+
+    /**
+     * Compares the running value against a fresh scan and adopts the scan when they differ by
+     * more than {@code product.valuation.tolerance}. Writes that commit during the scan are added
+     * on top, see {@link ProductReconciler}.
+     */
+    @Scheduled(initialDelayString = "${product.valuation.reconcile-interval:PT5M}",
+            fixedDelayString = "${product.valuation.reconcile-interval:PT5M}")
+    public void reconcile() {
+        synchronized (this) {
+            if (!enabled || !loaded) {
+                return;
+            }
+        }
+        productReconciler.reconcile("Inventory valuation", this, this::scan, InventoryValuation::plus, scanned -> {
+            BigDecimal scannedTotal = sum(scanned);
+            BigDecimal drift = scannedTotal.subtract(total);
+            boolean subtotalDrifted = scanned.entrySet().stream().anyMatch(entry -> entry.getValue()
+                    .subtract(subtotals.getOrDefault(entry.getKey(), BigDecimal.ZERO)).abs().doubleValue() > tolerance);
+            if (drift.abs().doubleValue() > tolerance || subtotalDrifted) {
+                log.warn("Inventory valuation drifted by {} (running {}, scanned {}), resetting", drift, total, scannedTotal);
+                replace(scanned);
+            }
+        });
+    }
+
+    private void load() {
+        synchronized (loadLock) {
+            if (loaded) {
+                return;
+            }
+            boolean adopted = productReconciler.reconcile("Inventory valuation", this, this::scan, InventoryValuation::plus, scanned -> {
+                replace(scanned);
+                loaded = true;
+            });
+            if (!adopted) {
+                synchronized (this) {
+                    replace(scan());
+                    loaded = true;
+                }
+                log.warn("Inventory valuation loaded without a reconcile round, it may be off until the next one");
+            }
+            log.info("Inventory valuation loaded: {}", total);
+        }
+    }
+
+    private Map<String, BigDecimal> scan() {
+        Map<String, BigDecimal> scanned = new HashMap<>();
+        for (Object[] row : productRepository.getTotalByProductType()) {
+            scanned.put((String) row[0], row[1] == null ? BigDecimal.ZERO : BigDecimal.valueOf(((Number) row[1]).doubleValue()));
+        }
+        return scanned;
+    }
+
+    private void replace(Map<String, BigDecimal> scanned) {
+        subtotals.clear();
+        scanned.forEach((productType, subtotal) -> {
+            if (subtotal.signum() != 0) {
+                subtotals.put(productType, subtotal);
+            }
+        });
+        total = sum(subtotals);
+        publish();
+    }
+
+    // recorded even before the first scan, which may already include the write
+    private void change(Map<String, BigDecimal> delta) {
+        productReconciler.record(this, delta);
+        if (!loaded) {
+            return;
+        }
+        delta.forEach(this::apply);
+        publish();
+    }
+
+    private void apply(String productType, BigDecimal value) {
+        BigDecimal subtotal = subtotals.getOrDefault(productType, BigDecimal.ZERO).add(value);
+        // types with no stock value are left out, the same way replace() drops them from a scan
+        if (subtotal.signum() == 0) {
+            subtotals.remove(productType);
+        } else {
+            subtotals.put(productType, subtotal);
+        }
+        total = total.add(value);
+    }
+
+    private static void add(Map<String, BigDecimal> delta, ProductResponse product, int sign) {
+        BigDecimal value = BigDecimal.valueOf(product.getPrice())
+                .multiply(BigDecimal.valueOf(product.getQuantity()));
+        delta.merge(product.getProductType(), sign < 0 ? value.negate() : value, BigDecimal::add);
+    }
+
+    private static Map<String, BigDecimal> plus(Map<String, BigDecimal> values, Map<String, BigDecimal> delta) {
+        Map<String, BigDecimal> sum = new HashMap<>(values);
+        delta.forEach((productType, value) -> sum.merge(productType, value, BigDecimal::add));
+        return sum;
+    }
+
+    private void publish() {
+        Map<String, Double> byProductType = new HashMap<>();
+        subtotals.forEach((productType, subtotal) -> byProductType.put(productType, subtotal.doubleValue()));
+        valuation = InventoryValuationResponse.builder()
+                .total(total.doubleValue())
+                .byProductType(Collections.unmodifiableMap(byProductType))
+                .build();
+    }
+
+    private static BigDecimal sum(Map<String, BigDecimal> values) {
+        return values.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
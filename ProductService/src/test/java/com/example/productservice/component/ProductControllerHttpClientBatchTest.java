@@ -0,0 +1,124 @@
+package com.example.productservice.component;
+
+import com.example.productservice.cache.ProductBatchLoader;
+import com.example.productservice.constant.URIConstant;
+import com.example.productservice.entity.Product;
+import com.example.productservice.service.ProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+
+import javax.persistence.EntityManagerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"product.batch.window=200ms", "product.batch.max-ids=4"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@Sql(scripts= "/scripts/schema.sql", executionPhase= Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts= "/scripts/insert.sql", executionPhase= Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts= "/scripts/delete.sql", executionPhase= Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class ProductControllerHttpClientBatchTest {
+    @LocalServerPort
+    private int port;
+
+    private String baseUrl = "http://localhost";
+
+    private final HttpClient client = HttpClient.newBuilder().build();
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ProductBatchLoader productBatchLoader;
+
+    @BeforeEach
+    public void setUp() {
+        baseUrl = baseUrl.concat(":").concat(port + "");
+    }
+
+    @Test
+    public void testBatchProductReadsById() throws IOException, URISyntaxException, InterruptedException {
+        DistributionSummary batchSizes = meterRegistry.summary(ProductBatchLoader.BATCH_SIZE_METRIC);
+
+        // a multi-get keeps the requested order, skips missing ids and reads in one batch
+        String expected = "[{\"productId\":5,\"productName\":\"HP Envy 13\",\"productDescription\":\"Manufactured by HP\",\"productType\":\"laptop\",\"price\":1299.99,\"quantity\":2}," +
+                "{\"productId\":1,\"productName\":\"iPhone X\",\"productDescription\":\"Manufactured by Apple\",\"productType\":\"phone\",\"price\":1499.99,\"quantity\":6}]";
+        assertEquals(expected, get(URIConstant.GET_BY_IDS + "?ids=5,42,1,5"));
+        assertEquals(1, batchSizes.count());
+
+        // single reads arriving within the window share one query
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            List<CompletableFuture<String>> names = new ArrayList<>();
+            for (long productId : new long[]{2, 4, 6}) {
+                names.add(CompletableFuture.supplyAsync(() -> productService.getProductById(productId).getProductName(), executor));
+            }
+            assertEquals("Galaxy S10", names.get(0).join());
+            assertEquals("Dell XPS 15", names.get(1).join());
+            assertEquals("Lenovo IdeaCentre 5i Gaming Desktop", names.get(2).join());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(2, batchSizes.count());
+        assertEquals(3, batchSizes.max());
+
+        // cached products are not read again
+        get(URIConstant.GET_BY_IDS + "?ids=2,4,6");
+        assertEquals(2, batchSizes.count());
+
+        // a batch takes what it can from the second-level cache instead of the table
+        CacheRegionStatistics region = entityManagerFactory.unwrap(SessionFactory.class).getStatistics()
+                .getDomainDataRegionStatistics(Product.CACHE_REGION);
+        long hits = region.getHitCount();
+        assertEquals(3, productBatchLoader.loadAll(List.of(2L, 4L, 6L)).size());
+        assertEquals(hits + 3, region.getHitCount());
+        assertEquals(3, batchSizes.count());
+
+        // more ids than product.batch.max-ids are turned away before any read
+        HttpRequest tooMany = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat(URIConstant.GET_BY_IDS + "?ids=1,2,3,4,5")))
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(tooMany, HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, response.statusCode());
+        assertEquals("Too many product ids.", new ObjectMapper().readTree(response.body()).get("message").asText());
+        assertEquals(3, batchSizes.count());
+    }
+
+    private String get(String path) throws IOException, URISyntaxException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat(path)))
+                .GET()
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+}
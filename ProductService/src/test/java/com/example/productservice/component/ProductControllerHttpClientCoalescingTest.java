@@ -0,0 +1,89 @@
+package com.example.productservice.component;
+
+import com.example.productservice.cache.RequestCoalescer;
+import com.example.productservice.model.ProductResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"product.coalescing.deadline=500ms"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class ProductControllerHttpClientCoalescingTest {
+    private static final ProductResponse MOTO_G = ProductResponse.builder()
+            .productId(100).productName("Moto G").productType("phone").price(200).quantity(2).build();
+
+    @Autowired
+    private RequestCoalescer requestCoalescer;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void testCoalesceIdenticalReads() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> requestCoalescer.execute("test", 1L, () -> {
+                awaitQuietly(release);
+                return "leader";
+            }), executor);
+            awaitCalls("leader", 1);
+            List<CompletableFuture<String>> followers = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                followers.add(CompletableFuture.supplyAsync(() -> requestCoalescer.execute("test", 1L, () -> "follower"), executor));
+            }
+            awaitCalls("collapsed", 3);
+            // another key is not held up by the flight in progress
+            assertEquals("other", requestCoalescer.execute("test", 2L, () -> "other"));
+            // a read after a write does not join a flight that started before it
+            requestCoalescer.onProductsSaved(List.of(MOTO_G));
+            assertEquals("fresh", requestCoalescer.execute("test", 1L, () -> "fresh"));
+            awaitCalls("collapsed", 3);
+            release.countDown();
+            assertEquals("leader", leader.join());
+            followers.forEach(follower -> assertEquals("leader", follower.join()));
+
+            // a caller still waiting at the deadline runs the call itself
+            CountDownLatch stuck = new CountDownLatch(1);
+            CompletableFuture<String> slow = CompletableFuture.supplyAsync(() -> requestCoalescer.execute("test", 3L, () -> {
+                awaitQuietly(stuck);
+                return "slow";
+            }), executor);
+            awaitCalls("leader", 4);
+            assertEquals("own", requestCoalescer.execute("test", 3L, () -> "own"));
+            assertEquals(1, meterRegistry.counter(RequestCoalescer.CALLS_METRIC, "operation", "test", "outcome", "expired").count());
+            stuck.countDown();
+            assertEquals("slow", slow.join());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void awaitCalls(String outcome, int expected) throws InterruptedException {
+        for (int i = 0; i < 500 && meterRegistry.counter(RequestCoalescer.CALLS_METRIC, "operation", "test", "outcome", outcome).count() < expected; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, meterRegistry.counter(RequestCoalescer.CALLS_METRIC, "operation", "test", "outcome", outcome).count());
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.productservice.component;
+
+import com.example.productservice.constant.URIConstant;
+import com.example.productservice.counter.ProductCounter;
+import com.example.productservice.service.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"product.counter.enabled=true"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@Sql(scripts= "/scripts/schema.sql", executionPhase= Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts= "/scripts/insert.sql", executionPhase= Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts= "/scripts/delete.sql", executionPhase= Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class ProductControllerHttpClientCounterTest {
+    @LocalServerPort
+    private int port;
+
+    private String baseUrl = "http://localhost";
+
+    private final HttpClient client = HttpClient.newBuilder().build();
+
+    @Autowired
+    private ProductCounter productCounter;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        baseUrl = baseUrl.concat(":").concat(port + "");
+    }
+
+    @Test
+    public void testCountProductsAndCheckName() throws IOException, URISyntaxException, InterruptedException {
+        assertEquals("6", get(URIConstant.COUNT));
+
+        // deltas from writes made through the service
+        delete("/api/product/5");
+        assertEquals("5", get(URIConstant.COUNT));
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat(URIConstant.DELETE_LIST)))
+                .header("Content-Type" , "application/json")
+                .method("DELETE", HttpRequest.BodyPublishers.ofString("[1,2]"))
+                .build();
+        client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals("3", get(URIConstant.COUNT));
+
+        // a row inserted behind the service's back is only counted after reconciliation
+        jdbcTemplate.update("INSERT INTO PRODUCT (product_id, product_name, product_type, price, quantity) VALUES (100, 'Moto G', 'phone', 199.99, 1)");
+        assertEquals("3", get(URIConstant.COUNT));
+        productCounter.reconcile();
+        assertEquals("4", get(URIConstant.COUNT));
+
+        // a rename through the service refreshes the normalized name; rows inserted without it still match
+        request = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat("/api/product/3")))
+                .header("Content-Type" , "application/json")
+                .header("If-Match", "\"0\"")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"name\":\"Nokia G50\"}"))
+                .build();
+        client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals("nokia g50", jdbcTemplate.queryForObject("SELECT product_name_normalized FROM PRODUCT WHERE product_id = 3", String.class));
+        assertTrue(productService.checkProductByProductName("NOKIA g50"));
+        assertFalse(productService.checkProductByProductName("Pixel 5"));
+        assertTrue(productService.checkProductByProductName("moto g"));
+        assertTrue(productService.checkProductByProductName("dell xps 15"));
+        assertFalse(productService.checkProductByProductName("HP Envy 13"));
+        assertFalse(productService.checkProductByProductName("iPhone"));
+    }
+
+    private String get(String path) throws IOException, URISyntaxException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat(path)))
+                .GET()
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+
+    private String delete(String path) throws IOException, URISyntaxException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat(path)))
+                .DELETE()
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.productservice.component;
+
+import com.example.productservice.index.ProductExistenceFilter;
+import com.example.productservice.service.ProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"product.existence-filter.enabled=true"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@Sql(scripts= "/scripts/schema.sql", executionPhase= Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts= "/scripts/insert.sql", executionPhase= Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts= "/scripts/delete.sql", executionPhase= Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class ProductControllerHttpClientExistenceFilterTest {
+    @LocalServerPort
+    private int port;
+
+    private String baseUrl = "http://localhost";
+
+    private final HttpClient client = HttpClient.newBuilder().build();
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductExistenceFilter productExistenceFilter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        baseUrl = baseUrl.concat(":").concat(port + "");
+        // @Sql seeds the table behind the service's back, after the startup build
+        productExistenceFilter.rebuild();
+    }
+
+    @Test
+    public void testExistenceFilter() throws IOException, URISyntaxException, InterruptedException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        String loadAllById = "/actuator/metrics/spring.data.repository.invocations?tag=repository:ProductRepository&tag=method:loadAllById";
+        assertEquals(3, objectMapper.readTree(get("/api/product/3")).get("productId").asLong());
+        assertEquals(1, objectMapper.readTree(get(loadAllById)).get("measurements").get(0).get("value").asInt());
+
+        // ids above the highest one seen at the last build may have been created elsewhere
+        assertEquals("Product is not found", objectMapper.readTree(get("/api/product/99")).get("message").asText());
+        assertEquals(2, objectMapper.readTree(get(loadAllById)).get("measurements").get(0).get("value").asInt());
+        assertFalse(productService.checkProductByProductId(99));
+        assertFalse(productService.checkProductByProductName("Nokia G50"));
+        assertTrue(productService.checkProductByProductName("pixel 5"));
+
+        // deleted products stay in the filter and are answered by the database
+        delete("/api/product/5");
+        assertTrue(productExistenceFilter.mightContainId(5));
+        assertFalse(productService.checkProductByProductId(5));
+
+        // a row inserted behind the service's back, e.g. by another instance, is found at once,
+        // by id above the mark and by name because names are not filtered
+        jdbcTemplate.update("INSERT INTO PRODUCT (product_id, product_name, product_type, price, quantity) VALUES (100, 'Moto G', 'phone', 199.99, 1)");
+        assertTrue(productService.checkProductByProductId(100));
+        assertTrue(productService.checkProductByProductName("MOTO G"));
+        productExistenceFilter.rebuild();
+        assertTrue(productService.checkProductByProductId(100));
+
+        // a definite miss never reaches the repository
+        assertEquals("Product is not found", objectMapper.readTree(get("/api/product/5")).get("message").asText());
+        assertEquals(2, objectMapper.readTree(get(loadAllById)).get("measurements").get(0).get("value").asInt());
+        assertFalse(productExistenceFilter.mightContainId(5));
+    }
+
+    private String get(String path) throws IOException, URISyntaxException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat(path)))
+                .GET()
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+
+    private String delete(String path) throws IOException, URISyntaxException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat(path)))
+                .DELETE()
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+}
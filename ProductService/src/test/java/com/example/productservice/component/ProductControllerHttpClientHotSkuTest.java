@@ -0,0 +1,162 @@
+package com.example.productservice.component;
+
+import com.example.productservice.model.ProductResponse;
+import com.example.productservice.stock.HotSkuCounters;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"product.hot-sku.enabled=true", "product.hot-sku.product-ids=3", "product.hot-sku.flush-interval=PT1H", "product.hot-sku.journal-directory=target/hot-sku-journal"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@Sql(scripts= "/scripts/schema.sql", executionPhase= Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts= "/scripts/insert.sql", executionPhase= Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts= "/scripts/delete.sql", executionPhase= Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class ProductControllerHttpClientHotSkuTest {
+    @LocalServerPort
+    private int port;
+
+    private String baseUrl = "http://localhost";
+
+    private final HttpClient client = HttpClient.newBuilder().build();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private HotSkuCounters hotSkuCounters;
+
+    @BeforeEach
+    public void setUp() {
+        baseUrl = baseUrl.concat(":").concat(port + "");
+    }
+
+    @Test
+    public void testReduceQuantityOfHotProduct() throws IOException, URISyntaxException, InterruptedException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        HttpRequest reduce = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat("/product/reduceQuantity/3?quantity=1")))
+                .PUT(HttpRequest.BodyPublishers.noBody())
+                .build();
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            responses.add(client.sendAsync(reduce, HttpResponse.BodyHandlers.ofString()));
+        }
+        assertEquals(4, responses.stream().map(CompletableFuture::join).filter(response -> response.statusCode() == 200).count());
+        assertEquals(16, responses.stream().map(CompletableFuture::join).filter(response -> response.statusCode() == 409).count());
+
+        // the counter is live, the table catches up on flush
+        assertEquals(0, objectMapper.readTree(get("/api/product/3")).get("quantity").asLong());
+        assertEquals(4L, jdbcTemplate.queryForObject("SELECT quantity FROM PRODUCT WHERE product_id = 3", Long.class));
+        hotSkuCounters.flush();
+        assertEquals(0L, jdbcTemplate.queryForObject("SELECT quantity FROM PRODUCT WHERE product_id = 3", Long.class));
+        assertEquals(0, objectMapper.readTree(get("/api/product/3")).get("quantity").asLong());
+    }
+
+    @Test
+    public void testHotSkuFlushDoesNotTakeStockBelowZero() throws IOException, URISyntaxException, InterruptedException {
+        HttpRequest reduce = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat("/product/reduceQuantity/3?quantity=3")))
+                .PUT(HttpRequest.BodyPublishers.noBody())
+                .build();
+        assertEquals(200, client.send(reduce, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        // stock sold behind this instance's back, e.g. by another one
+        jdbcTemplate.update("UPDATE PRODUCT SET quantity = 1 WHERE product_id = 3");
+        hotSkuCounters.flush();
+        assertEquals(1L, jdbcTemplate.queryForObject("SELECT quantity FROM PRODUCT WHERE product_id = 3", Long.class));
+        // the counter was dropped and reloads from the table
+        assertEquals(1, new ObjectMapper().readTree(get("/api/product/3")).get("quantity").asLong());
+    }
+
+    @Test
+    public void testHotSkuReloadCountsReservationsNotJournaledYet() throws InterruptedException {
+        long stock = 2000;
+        jdbcTemplate.update("UPDATE PRODUCT SET quantity = ? WHERE product_id = 3", stock);
+        ProductResponse pixel = ProductResponse.builder().productId(3).build();
+
+        // counters keep being dropped, as by edits, while reservations are between the counter and the journal
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<CompletableFuture<Long>> reservers = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                reservers.add(CompletableFuture.supplyAsync(() -> {
+                    long reserved = 0;
+                    while (hotSkuCounters.reserve(3, 1) == HotSkuCounters.Reservation.RESERVED) {
+                        reserved++;
+                    }
+                    return reserved;
+                }, executor));
+            }
+            while (!reservers.stream().allMatch(CompletableFuture::isDone)) {
+                hotSkuCounters.onProductUpdated(pixel, pixel);
+                Thread.sleep(1);
+            }
+            assertEquals(stock, reservers.stream().mapToLong(CompletableFuture::join).sum());
+        } finally {
+            executor.shutdownNow();
+        }
+        hotSkuCounters.flush();
+        assertEquals(0L, jdbcTemplate.queryForObject("SELECT quantity FROM PRODUCT WHERE product_id = 3", Long.class));
+    }
+
+    @Test
+    public void testPatchHotProduct() throws IOException, URISyntaxException, InterruptedException {
+        HttpRequest reduce = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat("/product/reduceQuantity/3?quantity=1")))
+                .PUT(HttpRequest.BodyPublishers.noBody())
+                .build();
+        assertEquals(200, client.send(reduce, HttpResponse.BodyHandlers.ofString()).statusCode());
+        hotSkuCounters.flush();
+        assertEquals(200, client.send(reduce, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        // live stock, but the version of the row as last written
+        HttpRequest get = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat("/api/product/3")))
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(get, HttpResponse.BodyHandlers.ofString());
+        assertEquals(2, new ObjectMapper().readTree(response.body()).get("quantity").asLong());
+        String etag = response.headers().firstValue("ETag").orElseThrow();
+        assertEquals("\"1\"", etag);
+
+        HttpRequest patch = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat("/api/product/3")))
+                .header("Content-Type" , "application/json")
+                .header("If-Match", etag)
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"price\":1199.99}"))
+                .build();
+        response = client.send(patch, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        assertEquals("\"2\"", response.headers().firstValue("ETag").orElseThrow());
+    }
+
+    private String get(String path) throws IOException, URISyntaxException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat(path)))
+                .GET()
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+}
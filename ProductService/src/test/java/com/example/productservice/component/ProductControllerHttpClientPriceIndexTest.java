@@ -0,0 +1,98 @@
+package com.example.productservice.component;
+
+import com.example.productservice.constant.URIConstant;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"product.price.index.enabled=true"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@Sql(scripts= "/scripts/schema.sql", executionPhase= Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts= "/scripts/insert.sql", executionPhase= Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts= "/scripts/delete.sql", executionPhase= Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class ProductControllerHttpClientPriceIndexTest {
+    @LocalServerPort
+    private int port;
+
+    private String baseUrl = "http://localhost";
+
+    private final HttpClient client = HttpClient.newBuilder().build();
+
+    @BeforeEach
+    public void setUp() {
+        baseUrl = baseUrl.concat(":").concat(port + "");
+    }
+
+    @Test
+    public void testGetProductsByPriceRangeFromIndex() throws IOException, URISyntaxException, InterruptedException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        assertEquals("4", get(URIConstant.COUNT_PRODUCT_BY_PRICE_RANGE + "?minPrice=1000&maxPrice=1500"));
+
+        List<Long> productIds = new ArrayList<>();
+        JsonNode page = objectMapper.readTree(get(URIConstant.GET_PRODUCT_BY_PRICE_RANGE + "?minPrice=1000&maxPrice=1500&limit=2"));
+        page.get("products").forEach(product -> productIds.add(product.get("productId").asLong()));
+        assertTrue(page.get("hasNext").asBoolean());
+
+        page = objectMapper.readTree(get(URIConstant.GET_PRODUCT_BY_PRICE_RANGE + "?minPrice=1000&maxPrice=1500&limit=2&after="
+                + page.get("nextCursor").asText()));
+        page.get("products").forEach(product -> productIds.add(product.get("productId").asLong()));
+        assertFalse(page.get("hasNext").asBoolean());
+        assertEquals(List.of(3L, 2L, 5L, 1L), productIds);
+
+        // the index follows writes made through the service
+        delete("/api/product/2");
+        assertEquals("3", get(URIConstant.COUNT_PRODUCT_BY_PRICE_RANGE + "?minPrice=1000&maxPrice=1500"));
+        HttpRequest patch = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat("/api/product/3")))
+                .header("Content-Type" , "application/json")
+                .header("If-Match", "\"0\"")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"price\":1399.99}"))
+                .build();
+        assertEquals(200, client.send(patch, HttpResponse.BodyHandlers.ofString()).statusCode());
+        productIds.clear();
+        objectMapper.readTree(get(URIConstant.GET_PRODUCT_BY_PRICE_RANGE + "?minPrice=1000&maxPrice=1500&limit=5"))
+                .get("products").forEach(product -> productIds.add(product.get("productId").asLong()));
+        assertEquals(List.of(5L, 3L, 1L), productIds);
+
+        // the unpaged lists read the table
+        String expected = "[{\"productId\":1,\"productName\":\"iPhone X\",\"productDescription\":\"Manufactured by Apple\",\"productType\":\"phone\",\"price\":1499.99,\"quantity\":6}," +
+                "{\"productId\":4,\"productName\":\"Dell XPS 15\",\"productDescription\":\"Manufactured by Dell\",\"productType\":\"laptop\",\"price\":1799.99,\"quantity\":6}]";
+        assertEquals(expected, get(URIConstant.GET_PRODUCT_BY_PRICE_GREATER_THAN + "?price=1400"));
+    }
+
+    private String get(String path) throws IOException, URISyntaxException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat(path)))
+                .GET()
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+
+    private String delete(String path) throws IOException, URISyntaxException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat(path)))
+                .DELETE()
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.productservice.component;
+
+import com.example.productservice.constant.URIConstant;
+import com.example.productservice.counter.ProductCounter;
+import com.example.productservice.model.ProductResponse;
+import com.example.productservice.reconcile.ProductReconciler;
+import com.example.productservice.valuation.InventoryValuation;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+// the product count and the inventory valuation are the two figures ProductReconciler keeps up to date
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"product.valuation.enabled=true", "product.counter.enabled=true"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@Sql(scripts= "/scripts/schema.sql", executionPhase= Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts= "/scripts/insert.sql", executionPhase= Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts= "/scripts/delete.sql", executionPhase= Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class ProductControllerHttpClientReconcileTest {
+    @LocalServerPort
+    private int port;
+
+    private static final ProductResponse MOTO_G = ProductResponse.builder()
+            .productId(100).productName("Moto G").productType("phone").price(200).quantity(2).build();
+
+    private String baseUrl = "http://localhost";
+
+    private final HttpClient client = HttpClient.newBuilder().build();
+
+    @Autowired
+    private InventoryValuation inventoryValuation;
+
+    @Autowired
+    private ProductCounter productCounter;
+
+    @Autowired
+    private ProductReconciler productReconciler;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    public void setUp() {
+        baseUrl = baseUrl.concat(":").concat(port + "");
+    }
+
+    @Test
+    public void testReconcileRunsWhileWritesAreOpen() throws IOException, URISyntaxException, InterruptedException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        assertEquals("6", get(URIConstant.COUNT));
+        assertEquals(36699.73, objectMapper.readTree(get(URIConstant.GET_VALUATION)).get("total").asDouble());
+
+        // a write that has not committed yet does not hold the round back
+        try (ProductReconciler.Write write = productReconciler.startWrite()) {
+            jdbcTemplate.update("INSERT INTO PRODUCT (product_id, product_name, product_type, price, quantity) VALUES (100, 'Moto G', 'phone', 200, 2)");
+            productCounter.reconcile();
+            inventoryValuation.reconcile();
+        }
+        assertEquals("7", get(URIConstant.COUNT));
+        assertEquals(37099.73, objectMapper.readTree(get(URIConstant.GET_VALUATION)).get("total").asDouble());
+        assertEquals(0, meterRegistry.counter(ProductReconciler.ROUNDS_METRIC, "name", "Product count", "outcome", "skipped").count());
+        assertEquals(0, meterRegistry.counter(ProductReconciler.ROUNDS_METRIC, "name", "Inventory valuation", "outcome", "skipped").count());
+    }
+
+    @Test
+    public void testReconcileCountsWriteNotifiedAfterScanOnce() throws IOException, URISyntaxException, InterruptedException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        assertEquals("6", get(URIConstant.COUNT));
+        assertEquals(36699.73, objectMapper.readTree(get(URIConstant.GET_VALUATION)).get("total").asDouble());
+
+        // committed before the scan, its listeners told while the round waits for them
+        ProductReconciler.Write write = productReconciler.startWrite();
+        insertMotoG(write);
+        CompletableFuture<Void> rounds = CompletableFuture.runAsync(() -> {
+            productCounter.reconcile();
+            inventoryValuation.reconcile();
+        });
+        Thread.sleep(200);
+        productCounter.onProductsSaved(List.of(MOTO_G));
+        inventoryValuation.onProductsSaved(List.of(MOTO_G));
+        write.close();
+        rounds.join();
+
+        assertEquals("7", get(URIConstant.COUNT));
+        assertEquals(37099.73, objectMapper.readTree(get(URIConstant.GET_VALUATION)).get("total").asDouble());
+        assertEquals(0, meterRegistry.counter(ProductReconciler.ROUNDS_METRIC, "name", "Product count", "outcome", "skipped").count());
+        assertEquals(0, meterRegistry.counter(ProductReconciler.ROUNDS_METRIC, "name", "Inventory valuation", "outcome", "skipped").count());
+    }
+
+    @Test
+    public void testFirstLoadCountsWriteNotifiedAfterScanOnce() throws URISyntaxException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        // committed before the first load, its listeners told while the load waits for them
+        ProductReconciler.Write write = productReconciler.startWrite();
+        insertMotoG(write);
+        CompletableFuture<HttpResponse<String>> count = client.sendAsync(HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat(URIConstant.COUNT))).GET().build(), HttpResponse.BodyHandlers.ofString());
+        CompletableFuture<HttpResponse<String>> valuation = client.sendAsync(HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat(URIConstant.GET_VALUATION))).GET().build(), HttpResponse.BodyHandlers.ofString());
+        try {
+            Thread.sleep(200);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        productCounter.onProductsSaved(List.of(MOTO_G));
+        inventoryValuation.onProductsSaved(List.of(MOTO_G));
+        write.close();
+
+        assertEquals("7", count.join().body());
+        assertEquals(37099.73, readTotal(objectMapper, valuation.join().body()));
+        assertEquals(7, productCounter.get());
+        assertEquals(37099.73, inventoryValuation.get().getTotal());
+    }
+
+    private String get(String path) throws IOException, URISyntaxException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat(path)))
+                .GET()
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+
+    private void insertMotoG(ProductReconciler.Write write) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            write.joinTransaction();
+            jdbcTemplate.update("INSERT INTO PRODUCT (product_id, product_name, product_type, price, quantity) VALUES (100, 'Moto G', 'phone', 200, 2)");
+        });
+    }
+
+    private static double readTotal(ObjectMapper objectMapper, String valuation) {
+        try {
+            return objectMapper.readTree(valuation).get("total").asDouble();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
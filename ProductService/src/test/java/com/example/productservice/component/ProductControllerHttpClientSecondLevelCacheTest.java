@@ -0,0 +1,71 @@
+package com.example.productservice.component;
+
+import com.example.productservice.entity.Product;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@Sql(scripts= "/scripts/schema.sql", executionPhase= Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts= "/scripts/insert.sql", executionPhase= Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts= "/scripts/delete.sql", executionPhase= Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class ProductControllerHttpClientSecondLevelCacheTest {
+    @LocalServerPort
+    private int port;
+
+    private String baseUrl = "http://localhost";
+
+    private final HttpClient client = HttpClient.newBuilder().build();
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    public void setUp() {
+        baseUrl = baseUrl.concat(":").concat(port + "");
+    }
+
+    @Test
+    public void testReduceQuantityKeepsOtherProductsCached() throws IOException, URISyntaxException, InterruptedException {
+        CacheRegionStatistics region = entityManagerFactory.unwrap(SessionFactory.class).getStatistics()
+                .getDomainDataRegionStatistics(Product.CACHE_REGION);
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        entityManager.find(Product.class, 1L);
+        entityManager.find(Product.class, 2L);
+        entityManager.close();
+        long hits = region.getHitCount();
+
+        HttpRequest reduce = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat("/product/reduceQuantity/1?quantity=1")))
+                .PUT(HttpRequest.BodyPublishers.noBody())
+                .build();
+        assertEquals(200, client.send(reduce, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        // only the ordered product left the region
+        entityManager = entityManagerFactory.createEntityManager();
+        assertEquals(3, entityManager.find(Product.class, 2L).getQuantity());
+        assertEquals(5, entityManager.find(Product.class, 1L).getQuantity());
+        entityManager.close();
+        assertEquals(hits + 1, region.getHitCount());
+    }
+}
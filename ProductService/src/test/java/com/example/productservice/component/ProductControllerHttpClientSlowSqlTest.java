@@ -0,0 +1,65 @@
+package com.example.productservice.component;
+
+import com.example.productservice.constant.URIConstant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+// every statement counts as slow, so its log line can be checked
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"product.diagnostics.slow-query-threshold=0ms", "product.diagnostics.count-rows=true"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@ExtendWith(OutputCaptureExtension.class)
+public class ProductControllerHttpClientSlowSqlTest {
+    @LocalServerPort
+    private int port;
+
+    private String baseUrl = "http://localhost";
+
+    @BeforeEach
+    public void setUp() {
+        baseUrl = baseUrl.concat(":").concat(port + "");
+    }
+
+    @Test
+    @Sql(scripts= "/scripts/schema.sql", executionPhase= Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(scripts= "/scripts/insert.sql", executionPhase= Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(scripts= "/scripts/delete.sql", executionPhase= Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    public void testGetProductsServerTimingAndSlowSql(CapturedOutput output) throws IOException, URISyntaxException, InterruptedException {
+        HttpResponse<String> response = HttpClient.newBuilder().build()
+                .send(HttpRequest.newBuilder().uri(new URI(baseUrl.concat(URIConstant.GET))).GET().build(),
+                        HttpResponse.BodyHandlers.ofString());
+        assertEquals(HttpStatus.OK.value(), response.statusCode());
+
+        String serverTiming = response.headers().firstValue("Server-Timing").orElseThrow();
+        assertTrue(serverTiming.matches("db;dur=\\d+\\.\\d{3};desc=\"1 statements, 6 rows\", app;dur=\\d+\\.\\d{3}"), serverTiming);
+
+        assertTrue(output.getOut().contains("Slow SQL took "));
+        assertTrue(output.getOut().contains("in ProductRepository.findAllProductResponses: "));
+
+        // bound parameters are part of the slow statement's log line
+        HttpClient.newBuilder().build()
+                .send(HttpRequest.newBuilder().uri(new URI(baseUrl.concat("/api/product/3"))).GET().build(),
+                        HttpResponse.BodyHandlers.ofString());
+        assertTrue(output.getOut().contains("in ProductRepository.loadAllById: "));
+        assertTrue(output.getOut().contains("Params:[(3)]"));
+    }
+}
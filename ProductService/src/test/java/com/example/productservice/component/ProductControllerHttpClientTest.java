@@ -3,28 +3,42 @@ package com.example.productservice.component;
 import com.example.productservice.constant.URIConstant;
 import com.example.productservice.model.ProductRequest;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
 import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.jdbc.Sql;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@ExtendWith(OutputCaptureExtension.class)
 public class ProductControllerHttpClientTest {
     @LocalServerPort
     private int port;
@@ -56,6 +70,138 @@ public class ProductControllerHttpClientTest {
         assertEquals(String.valueOf(1), response.body());
     }
 
+    @Test
+    @Sql(statements = "CREATE TABLE IF NOT EXISTS PRODUCT(product_id BIGINT PRIMARY KEY, product_name VARCHAR(255), " +
+            "product_description VARCHAR(255), product_type VARCHAR(255), price DOUBLE, quantity BIGINT)", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(statements = "DROP TABLE PRODUCT", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    public void testBulkInsertProducts() throws IOException, URISyntaxException, InterruptedException {
+        HttpClient client = HttpClient.newBuilder().build();
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<ProductRequest> productRequests = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            productRequests.add(new ProductRequest("Product " + i, "Bulk loaded", "phone", 100 + i, i));
+        }
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat(URIConstant.POST_BULK)))
+                .header("Content-Type" , "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(productRequests)))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(HttpStatus.CREATED.value(), response.statusCode());
+
+        // product.bulk.chunk-size is 4 in the test profile
+        JsonNode report = objectMapper.readTree(response.body());
+        assertEquals(10, report.get("rows").asLong());
+        assertEquals(3, report.get("chunks").asInt());
+        assertTrue(report.get("rowsPerSecond").asDouble() > 0);
+
+        request = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat(URIConstant.GET)))
+                .GET()
+                .build();
+        List<Long> productIds = new ArrayList<>();
+        objectMapper.readTree(client.send(request, HttpResponse.BodyHandlers.ofString()).body())
+                .forEach(product -> productIds.add(product.get("productId").asLong()));
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L), productIds);
+    }
+
+    @Test
+    @Sql(statements = "CREATE TABLE IF NOT EXISTS PRODUCT(product_id BIGINT PRIMARY KEY, product_name VARCHAR(255), " +
+            "product_description VARCHAR(255), product_type VARCHAR(255), price DOUBLE, quantity BIGINT)", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(statements = "DROP TABLE PRODUCT", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    public void testImportProductsNdjson() throws IOException, URISyntaxException, InterruptedException {
+        HttpClient client = HttpClient.newBuilder().build();
+        ObjectMapper objectMapper = new ObjectMapper();
+        String feed = "{\"name\":\"Product 1\",\"type\":\"phone\",\"price\":101,\"quantity\":1}\n" +
+                "{\"name\":\"Product 2\",\"type\":\"phone\",\"price\":102,\"quantity\":2}\n" +
+                "{\"name\":\"Broken\",\n" +
+                "{\"name\":\"Product 3\",\"type\":\"phone\",\"price\":103,\"quantity\":3}\n" +
+                "\n" +
+                "{\"name\":\"Product 4\",\"type\":\"phone\",\"price\":104,\"quantity\":4}\n" +
+                "{\"name\":\"Negative\",\"type\":\"phone\",\"price\":-1,\"quantity\":1}\n" +
+                "{\"name\":\"Product 5\",\"type\":\"phone\",\"price\":105,\"quantity\":5}\n" +
+                "{\"name\":\"Product 6\",\"type\":\"phone\",\"price\":106,\"quantity\":6}\n";
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat(URIConstant.POST_IMPORT)))
+                .header("Content-Type" , "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(feed))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(HttpStatus.OK.value(), response.statusCode());
+
+        // product.bulk.chunk-size is 4 in the test profile: two progress lines, then the summary
+        String[] lines = response.body().split("\n");
+        assertEquals(3, lines.length);
+        JsonNode progress = objectMapper.readTree(lines[0]);
+        assertEquals(1, progress.get("chunk").asInt());
+        assertEquals(4, progress.get("imported").asLong());
+        assertEquals(1, progress.get("rejected").asLong());
+        progress = objectMapper.readTree(lines[1]);
+        assertEquals(2, progress.get("chunk").asInt());
+        assertEquals(6, progress.get("imported").asLong());
+
+        JsonNode summary = objectMapper.readTree(lines[2]);
+        assertEquals(8, summary.get("rows").asLong());
+        assertEquals(6, summary.get("imported").asLong());
+        assertEquals(2, summary.get("rejected").asLong());
+        assertEquals(2, summary.get("chunks").asInt());
+        assertEquals(3, summary.get("errors").get(0).get("row").asLong());
+        assertTrue(summary.get("errors").get(0).get("message").asText().startsWith("Malformed row: "));
+        assertEquals(7, summary.get("errors").get(1).get("row").asLong());
+        assertEquals("Product data is invalid.", summary.get("errors").get(1).get("message").asText());
+
+        request = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat(URIConstant.GET)))
+                .GET()
+                .build();
+        List<String> productNames = new ArrayList<>();
+        objectMapper.readTree(client.send(request, HttpResponse.BodyHandlers.ofString()).body())
+                .forEach(product -> productNames.add(product.get("productName").asText()));
+        assertEquals(List.of("Product 1", "Product 2", "Product 3", "Product 4", "Product 5", "Product 6"), productNames);
+    }
+
+    @Test
+    @Sql(statements = "CREATE TABLE IF NOT EXISTS PRODUCT(product_id BIGINT PRIMARY KEY, product_name VARCHAR(255), " +
+            "product_description VARCHAR(255), product_type VARCHAR(255), price DOUBLE, quantity BIGINT)", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(statements = "DROP TABLE PRODUCT", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    public void testImportProductsCsv() throws IOException, URISyntaxException, InterruptedException {
+        HttpClient client = HttpClient.newBuilder().build();
+        ObjectMapper objectMapper = new ObjectMapper();
+        String feed = "name,description,type,price,quantity\n" +
+                "Pixel 7,\"Made by Google, in Taiwan\",phone,599.99,3\n" +
+                "Moto G,,phone,abc,2\n" +
+                "ThinkPad X1,\"Business laptop\nwith a 14\"\" screen\",laptop,1899,5\n" +
+                ",No name,phone,10,1\n" +
+                "Extra,Too many columns,phone,1,1,unexpected\n";
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat(URIConstant.POST_IMPORT)))
+                .header("Content-Type" , "text/csv")
+                .POST(HttpRequest.BodyPublishers.ofString(feed))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(HttpStatus.OK.value(), response.statusCode());
+
+        String[] lines = response.body().split("\n");
+        assertEquals(2, lines.length);
+        JsonNode summary = objectMapper.readTree(lines[1]);
+        assertEquals(5, summary.get("rows").asLong());
+        assertEquals(2, summary.get("imported").asLong());
+        assertEquals(3, summary.get("rejected").asLong());
+        // product.import.max-errors is 2 in the test profile
+        assertEquals(2, summary.get("errors").size());
+        assertEquals(2, summary.get("errors").get(0).get("row").asLong());
+        assertEquals(4, summary.get("errors").get(1).get("row").asLong());
+
+        request = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat(URIConstant.GET)))
+                .GET()
+                .build();
+        JsonNode products = objectMapper.readTree(client.send(request, HttpResponse.BodyHandlers.ofString()).body());
+        assertEquals(2, products.size());
+        assertEquals("Made by Google, in Taiwan", products.get(0).get("productDescription").asText());
+        assertEquals("Business laptop\nwith a 14\" screen", products.get(1).get("productDescription").asText());
+    }
+
     @Test
     @Sql(statements = "CREATE TABLE IF NOT EXISTS PRODUCT(product_id BIGINT PRIMARY KEY, product_name VARCHAR(255), " +
             "product_description VARCHAR(255), product_type VARCHAR(255), price DOUBLE, quantity BIGINT)", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
@@ -87,6 +233,125 @@ public class ProductControllerHttpClientTest {
         assertEquals(expected, response.body());
     }
 
+    @Test
+    @Sql(statements = "CREATE TABLE IF NOT EXISTS PRODUCT(product_id BIGINT PRIMARY KEY, product_name VARCHAR(255), " +
+            "product_description VARCHAR(255), product_type VARCHAR(255), price DOUBLE, quantity BIGINT)", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(statements = "INSERT INTO PRODUCT (product_id, product_name, product_description, product_type, price, quantity) VALUES " +
+                            "(1,'iPhone X','Manufactured by Apple','phone',1499.99,6), " +
+                            "(2,'Galaxy S10','Manufactured by Samsung','phone',1299.99,3), " +
+                            "(3,'Pixel 5','Manufactured by Google','phone',1099.99,4), " +
+                            "(4,'Dell XPS 15','Manufactured by Dell','laptop',1799.99,6), " +
+                            "(5,'HP Envy 13','Manufactured by HP','laptop',1299.99,2), " +
+                            "(6,'Lenovo IdeaCentre 5i Gaming Desktop','Manufactured by Lenovo','desktop',999.99,6)",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(statements = "DROP TABLE PRODUCT", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    public void testGetProductsLogsSummary(CapturedOutput output) throws IOException, URISyntaxException, InterruptedException {
+        HttpClient client = HttpClient.newBuilder().build();
+        client.send(HttpRequest.newBuilder().uri(new URI(baseUrl.concat(URIConstant.GET))).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertTrue(output.getOut().contains("Getting list product (6 products, ids 1..6, "));
+        assertFalse(output.getOut().contains("payload: ["));
+
+        // the debug header asks for the rows themselves
+        client.send(HttpRequest.newBuilder().uri(new URI(baseUrl.concat(URIConstant.GET)))
+                        .header("X-Debug-Payload", "true").GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertTrue(output.getOut().contains("payload: [ProductResponse(productId=1, productName=iPhone X"));
+    }
+
+    @Test
+    @Sql(statements = "CREATE TABLE IF NOT EXISTS PRODUCT(product_id BIGINT PRIMARY KEY, product_name VARCHAR(255), " +
+            "product_description VARCHAR(255), product_type VARCHAR(255), price DOUBLE, quantity BIGINT)", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(statements = "INSERT INTO PRODUCT (product_id, product_name, product_description, product_type, price, quantity) VALUES " +
+            "(1,'iPhone X','Manufactured by Apple','phone',1499.99,6), " +
+            "(2,'Galaxy S10','Manufactured by Samsung','phone',1299.99,3), " +
+            "(3,'Pixel 5','Manufactured by Google','phone',1099.99,4), " +
+            "(4,'Dell XPS 15','Manufactured by Dell','laptop',1799.99,6), " +
+            "(5,'HP Envy 13','Manufactured by HP','laptop',1299.99,2), " +
+            "(6,'Lenovo IdeaCentre 5i Gaming Desktop','Manufactured by Lenovo','desktop',999.99,6)",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(statements = "DROP TABLE PRODUCT", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    public void testStreamProducts() throws IOException, URISyntaxException, InterruptedException {
+        baseUrl = baseUrl.concat(URIConstant.GET_STREAM);
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl))
+                .GET()
+                .build();
+        HttpResponse<String> response = HttpClient.newBuilder()
+                .build()
+                .send(request, HttpResponse.BodyHandlers.ofString());
+
+        String expected = "[{\"productId\":1,\"productName\":\"iPhone X\",\"productDescription\":\"Manufactured by Apple\",\"productType\":\"phone\",\"price\":1499.99,\"quantity\":6}," +
+                "{\"productId\":2,\"productName\":\"Galaxy S10\",\"productDescription\":\"Manufactured by Samsung\",\"productType\":\"phone\",\"price\":1299.99,\"quantity\":3}," +
+                "{\"productId\":3,\"productName\":\"Pixel 5\",\"productDescription\":\"Manufactured by Google\",\"productType\":\"phone\",\"price\":1099.99,\"quantity\":4}," +
+                "{\"productId\":4,\"productName\":\"Dell XPS 15\",\"productDescription\":\"Manufactured by Dell\",\"productType\":\"laptop\",\"price\":1799.99,\"quantity\":6}," +
+                "{\"productId\":5,\"productName\":\"HP Envy 13\",\"productDescription\":\"Manufactured by HP\",\"productType\":\"laptop\",\"price\":1299.99,\"quantity\":2}," +
+                "{\"productId\":6,\"productName\":\"Lenovo IdeaCentre 5i Gaming Desktop\",\"productDescription\":\"Manufactured by Lenovo\",\"productType\":\"desktop\",\"price\":999.99,\"quantity\":6}]";
+        assertEquals(HttpStatus.OK.value(), response.statusCode());
+        assertEquals(expected, response.body());
+    }
+
+    @Test
+    @Sql(statements = "CREATE TABLE IF NOT EXISTS PRODUCT(product_id BIGINT PRIMARY KEY, product_name VARCHAR(255), " +
+            "product_description VARCHAR(255), product_type VARCHAR(255), price DOUBLE, quantity BIGINT)", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(statements = "INSERT INTO PRODUCT (product_id, product_name, product_description, product_type, price, quantity) VALUES " +
+            "(1,'iPhone X','Manufactured by Apple','phone',1499.99,6), " +
+            "(2,'Galaxy S10','Manufactured by Samsung','phone',1299.99,3), " +
+            "(3,'Pixel 5','Manufactured by Google','phone',1099.99,4), " +
+            "(4,'Dell XPS 15','Manufactured by Dell','laptop',1799.99,6), " +
+            "(5,'HP Envy 13','Manufactured by HP','laptop',1299.99,2), " +
+            "(6,'Lenovo IdeaCentre 5i Gaming Desktop','Manufactured by Lenovo','desktop',999.99,6)",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(statements = "DROP TABLE PRODUCT", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    public void testExportProductsNdjson() throws IOException, URISyntaxException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat(URIConstant.GET_EXPORT)))
+                .GET()
+                .build();
+        HttpResponse<String> response = HttpClient.newBuilder()
+                .build()
+                .send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(HttpStatus.OK.value(), response.statusCode());
+        assertEquals("application/x-ndjson", response.headers().firstValue("Content-Type").orElse(null));
+        String expected = "{\"productId\":1,\"productName\":\"iPhone X\",\"productDescription\":\"Manufactured by Apple\",\"productType\":\"phone\",\"price\":1499.99,\"quantity\":6}\n" +
+                "{\"productId\":2,\"productName\":\"Galaxy S10\",\"productDescription\":\"Manufactured by Samsung\",\"productType\":\"phone\",\"price\":1299.99,\"quantity\":3}\n" +
+                "{\"productId\":3,\"productName\":\"Pixel 5\",\"productDescription\":\"Manufactured by Google\",\"productType\":\"phone\",\"price\":1099.99,\"quantity\":4}\n" +
+                "{\"productId\":4,\"productName\":\"Dell XPS 15\",\"productDescription\":\"Manufactured by Dell\",\"productType\":\"laptop\",\"price\":1799.99,\"quantity\":6}\n" +
+                "{\"productId\":5,\"productName\":\"HP Envy 13\",\"productDescription\":\"Manufactured by HP\",\"productType\":\"laptop\",\"price\":1299.99,\"quantity\":2}\n" +
+                "{\"productId\":6,\"productName\":\"Lenovo IdeaCentre 5i Gaming Desktop\",\"productDescription\":\"Manufactured by Lenovo\",\"productType\":\"desktop\",\"price\":999.99,\"quantity\":6}\n";
+        assertEquals(expected, response.body());
+    }
+
+    @Test
+    @Sql(statements = "CREATE TABLE IF NOT EXISTS PRODUCT(product_id BIGINT PRIMARY KEY, product_name VARCHAR(255), " +
+            "product_description VARCHAR(255), product_type VARCHAR(255), price DOUBLE, quantity BIGINT)", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(statements = "INSERT INTO PRODUCT (product_id, product_name, product_description, product_type, price, quantity) VALUES " +
+            "(1,'iPhone X','Manufactured by Apple','phone',1499.99,6), " +
+            "(2,'Galaxy S10','Manufactured by Samsung','phone',1299.99,3), " +
+            "(3,'Pixel 5','Manufactured by Google','phone',1099.99,4)",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(statements = "DROP TABLE PRODUCT", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    public void testExportProductsCsvGzip() throws IOException, URISyntaxException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat(URIConstant.GET_EXPORT + "?format=csv")))
+                .header("Accept-Encoding", "gzip")
+                .GET()
+                .build();
+        HttpResponse<byte[]> response = HttpClient.newBuilder()
+                .build()
+                .send(request, HttpResponse.BodyHandlers.ofByteArray());
+
+        assertEquals(HttpStatus.OK.value(), response.statusCode());
+        assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElse(null));
+        String body = new String(new GZIPInputStream(new ByteArrayInputStream(response.body())).readAllBytes(), StandardCharsets.UTF_8);
+        String expected = "productId,productName,productDescription,productType,price,quantity\n" +
+                "1,\"iPhone X\",\"Manufactured by Apple\",phone,1499.99,6\n" +
+                "2,\"Galaxy S10\",\"Manufactured by Samsung\",phone,1299.99,3\n" +
+                "3,\"Pixel 5\",\"Manufactured by Google\",phone,1099.99,4\n";
+        assertEquals(expected, body);
+    }
+
     @Test
     @Sql(statements = "CREATE TABLE IF NOT EXISTS PRODUCT(product_id BIGINT PRIMARY KEY, product_name VARCHAR(255), " +
             "product_description VARCHAR(255), product_type VARCHAR(255), price DOUBLE, quantity BIGINT)", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
@@ -202,7 +467,365 @@ public class ProductControllerHttpClientTest {
         assertEquals(expected, response.body());
     }
 
+    @Test
+    @Sql(statements = "CREATE TABLE IF NOT EXISTS PRODUCT(product_id BIGINT PRIMARY KEY, product_name VARCHAR(255), " +
+            "product_description VARCHAR(255), product_type VARCHAR(255), price DOUBLE, quantity BIGINT)", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(statements = "INSERT INTO PRODUCT (product_id, product_name, product_description, product_type, price, quantity) VALUES " +
+            "(1,'iPhone X','Manufactured by Apple','phone',1499.99,6), " +
+            "(2,'Galaxy S10','Manufactured by Samsung','phone',1299.99,3), " +
+            "(3,'Pixel 5','Manufactured by Google','phone',1099.99,4), " +
+            "(4,'Dell XPS 15','Manufactured by Dell','laptop',1799.99,6), " +
+            "(5,'HP Envy 13','Manufactured by HP','laptop',1299.99,2), " +
+            "(6,'Lenovo IdeaCentre 5i Gaming Desktop','Manufactured by Lenovo','desktop',999.99,6)",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(statements = "DROP TABLE PRODUCT", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    public void testGetProductsByName() throws IOException, URISyntaxException, InterruptedException {
+        baseUrl = baseUrl.concat(URIConstant.GET_BY_NAME + "?productName=eNv");
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl))
+                .GET()
+                .build();
+        HttpResponse<String> response = HttpClient.newBuilder()
+                .build()
+                .send(request, HttpResponse.BodyHandlers.ofString());
+
+        String expected = "[{\"productId\":5,\"productName\":\"HP Envy 13\",\"productDescription\":\"Manufactured by HP\",\"productType\":\"laptop\",\"price\":1299.99,\"quantity\":2}]";
+        assertEquals(expected, response.body());
+    }
+
+    @Test
+    @Sql(statements = "CREATE TABLE IF NOT EXISTS PRODUCT(product_id BIGINT PRIMARY KEY, product_name VARCHAR(255), " +
+            "product_description VARCHAR(255), product_type VARCHAR(255), price DOUBLE, quantity BIGINT)", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(statements = "INSERT INTO PRODUCT (product_id, product_name, product_description, product_type, price, quantity) VALUES " +
+            "(1,'iPhone X','Manufactured by Apple','phone',1499.99,6), " +
+            "(2,'Galaxy S10','Manufactured by Samsung','phone',1299.99,3), " +
+            "(3,'Pixel 5','Manufactured by Google','phone',1099.99,4)",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(statements = "DROP TABLE PRODUCT", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    public void testGetProductByIdIsCached() throws IOException, URISyntaxException, InterruptedException {
+        HttpClient client = HttpClient.newBuilder().build();
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat("/api/product/3")))
+                .GET()
+                .build();
+        client.send(request, HttpResponse.BodyHandlers.ofString());
+        client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        HttpRequest statsRequest = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat(URIConstant.GET_CACHE_STATS)))
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(statsRequest, HttpResponse.BodyHandlers.ofString());
+
+        String expected = "{\"size\":1,\"hitCount\":1,\"missCount\":1,\"hitRate\":0.5,\"evictionCount\":0}";
+        assertEquals(expected, response.body());
+    }
+
+    @Test
+    @Sql(statements = "CREATE TABLE IF NOT EXISTS PRODUCT(product_id BIGINT PRIMARY KEY, product_name VARCHAR(255), " +
+            "product_description VARCHAR(255), product_type VARCHAR(255), price DOUBLE, quantity BIGINT)", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(statements = "INSERT INTO PRODUCT (product_id, product_name, product_description, product_type, price, quantity) VALUES " +
+            "(1,'iPhone X','Manufactured by Apple','phone',1499.99,6), " +
+            "(2,'Galaxy S10','Manufactured by Samsung','phone',1299.99,3), " +
+            "(3,'Pixel 5','Manufactured by Google','phone',1099.99,4), " +
+            "(4,'Dell XPS 15','Manufactured by Dell','laptop',1799.99,6), " +
+            "(5,'HP Envy 13','Manufactured by HP','laptop',1299.99,2), " +
+            "(6,'Lenovo IdeaCentre 5i Gaming Desktop','Manufactured by Lenovo','desktop',999.99,6)",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(statements = "DROP TABLE PRODUCT", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    public void testGetProductsByPriceBetweenUsesQueryCache() throws IOException, URISyntaxException, InterruptedException {
+        HttpClient client = HttpClient.newBuilder().build();
+        ObjectMapper objectMapper = new ObjectMapper();
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat(URIConstant.GET_PRODUCT_BY_PRICE + "?minPrice=1000&maxPrice=1500")))
+                .GET()
+                .build();
+        client.send(request, HttpResponse.BodyHandlers.ofString());
+        client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        HttpRequest statsRequest = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat(URIConstant.GET_CACHE_REGION_STATS)))
+                .GET()
+                .build();
+        JsonNode queryRegion = objectMapper.readTree(client.send(statsRequest, HttpResponse.BodyHandlers.ofString()).body()).get(1);
+        assertEquals("product-queries", queryRegion.get("region").asText());
+        assertEquals(1, queryRegion.get("hitCount").asLong());
+        assertEquals(1, queryRegion.get("missCount").asLong());
+        assertEquals(1, queryRegion.get("putCount").asLong());
+
+        // a JPQL delete invalidates the cached result, so the next read goes back to the table
+        client.send(HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat(URIConstant.DELETE_LIST)))
+                .header("Content-Type" , "application/json")
+                .method("DELETE", HttpRequest.BodyPublishers.ofString("[2,5]"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        List<Long> productIds = new ArrayList<>();
+        objectMapper.readTree(client.send(request, HttpResponse.BodyHandlers.ofString()).body())
+                .forEach(product -> productIds.add(product.get("productId").asLong()));
+        assertEquals(List.of(1L, 3L), productIds);
+
+        queryRegion = objectMapper.readTree(client.send(statsRequest, HttpResponse.BodyHandlers.ofString()).body()).get(1);
+        assertEquals(1, queryRegion.get("hitCount").asLong());
+        assertEquals(2, queryRegion.get("missCount").asLong());
+    }
+
+    @Test
+    @Sql(statements = "CREATE TABLE IF NOT EXISTS PRODUCT(product_id BIGINT PRIMARY KEY, product_name VARCHAR(255), " +
+            "product_description VARCHAR(255), product_type VARCHAR(255), price DOUBLE, quantity BIGINT)", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(statements = "INSERT INTO PRODUCT (product_id, product_name, product_description, product_type, price, quantity) VALUES " +
+            "(1,'iPhone X','Manufactured by Apple','phone',1499.99,6), " +
+            "(2,'Galaxy S10','Manufactured by Samsung','phone',1299.99,3), " +
+            "(3,'Pixel 5','Manufactured by Google','phone',1099.99,4)",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(statements = "DROP TABLE PRODUCT", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    public void testMetrics() throws IOException, URISyntaxException, InterruptedException {
+        HttpClient client = HttpClient.newBuilder().build();
+        ObjectMapper objectMapper = new ObjectMapper();
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat("/api/product/3")))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(HttpStatus.OK.value(), response.statusCode());
+        response = client.send(HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat("/api/product/99")))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(HttpStatus.BAD_REQUEST.value(), response.statusCode());
+
+        // one timer per mapping, tagged with the URI template
+        JsonNode requests = getMetric(client, objectMapper, "http.server.requests?tag=uri:/api/product/%7Bid%7D");
+        assertEquals(2, requests.get("measurements").get(0).get("value").asInt());
+        JsonNode p99 = getMetric(client, objectMapper, "http.server.requests.percentile?tag=uri:/api/product/%7Bid%7D&tag=phi:0.99");
+        assertTrue(p99.get("measurements").get(0).get("value").asDouble() > 0);
+
+        // both lookups missed the cache and went to the repository
+        JsonNode invocations = getMetric(client, objectMapper, "spring.data.repository.invocations?tag=repository:ProductRepository&tag=method:loadAllById");
+        assertEquals(2, invocations.get("measurements").get(0).get("value").asInt());
+
+        JsonNode exceptions = getMetric(client, objectMapper, "http.server.handled.exceptions?tag=exception:BadRequest400Exception&tag=status:400");
+        assertEquals(1, exceptions.get("measurements").get(0).get("value").asInt());
+    }
+
+    @Test
+    @Sql(statements = "CREATE TABLE IF NOT EXISTS PRODUCT(product_id BIGINT PRIMARY KEY, product_name VARCHAR(255), " +
+            "product_description VARCHAR(255), product_type VARCHAR(255), price DOUBLE, quantity BIGINT)", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(statements = "INSERT INTO PRODUCT (product_id, product_name, product_description, product_type, price, quantity) VALUES " +
+            "(1,'iPhone X','Manufactured by Apple','phone',1499.99,6), " +
+            "(2,'Galaxy S10','Manufactured by Samsung','phone',1299.99,3), " +
+            "(3,'Pixel 5','Manufactured by Google','phone',1099.99,4), " +
+            "(4,'Dell XPS 15','Manufactured by Dell','laptop',1799.99,6), " +
+            "(5,'HP Envy 13','Manufactured by HP','laptop',1299.99,2), " +
+            "(6,'Lenovo IdeaCentre 5i Gaming Desktop','Manufactured by Lenovo','desktop',999.99,6)",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(statements = "DROP TABLE PRODUCT", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    public void testGetProductsAfterCursor() throws IOException, URISyntaxException, InterruptedException {
+        HttpClient client = HttpClient.newBuilder().build();
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<Long> productIds = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            String url = baseUrl.concat(URIConstant.GET_BY_CURSOR + "?fieldName=price&limit=2")
+                    .concat(cursor == null ? "" : "&after=" + cursor);
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(new URI(url))
+                    .GET()
+                    .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            assertEquals(HttpStatus.OK.value(), response.statusCode());
+
+            JsonNode page = objectMapper.readTree(response.body());
+            page.get("products").forEach(product -> productIds.add(product.get("productId").asLong()));
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+            pages++;
+        } while (cursor != null);
+
+        // price 1299.99 is shared by products 2 and 5, the tie is broken by product id
+        assertEquals(List.of(6L, 3L, 2L, 5L, 1L, 4L), productIds);
+        assertEquals(3, pages);
+    }
+
     //convert Object to Json using ObjectMapper
+    @Test
+    @Sql(statements = "CREATE TABLE IF NOT EXISTS PRODUCT(product_id BIGINT PRIMARY KEY, product_name VARCHAR(255), " +
+            "product_description VARCHAR(255), product_type VARCHAR(255), price DOUBLE, quantity BIGINT)", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(statements = "INSERT INTO PRODUCT (product_id, product_name, product_description, product_type, price, quantity) VALUES " +
+                            "(1,'iPhone X','Manufactured by Apple','phone',1499.99,6), " +
+                            "(2,'Galaxy S10','Manufactured by Samsung','phone',1299.99,3), " +
+                            "(3,'Pixel 5','Manufactured by Google','phone',1099.99,4), " +
+                            "(4,'Dell XPS 15','Manufactured by Dell','laptop',1799.99,6), " +
+                            "(5,'HP Envy 13','Manufactured by HP','laptop',1299.99,2), " +
+                            "(6,'Lenovo IdeaCentre 5i Gaming Desktop','Manufactured by Lenovo','desktop',999.99,6)",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(statements = "DROP TABLE PRODUCT", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    public void testDeleteListProducts() throws IOException, URISyntaxException, InterruptedException {
+        HttpClient client = HttpClient.newBuilder().build();
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat(URIConstant.DELETE_LIST)))
+                .header("Content-Type" , "application/json")
+                .method("DELETE", HttpRequest.BodyPublishers.ofString("[5,2,9,2,7]"))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(HttpStatus.OK.value(), response.statusCode());
+        assertEquals("{\"deletedIds\":[2,5],\"missingIds\":[7,9]}", response.body());
+
+        request = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat(URIConstant.GET)))
+                .GET()
+                .build();
+        List<Long> productIds = new ArrayList<>();
+        new ObjectMapper().readTree(client.send(request, HttpResponse.BodyHandlers.ofString()).body())
+                .forEach(product -> productIds.add(product.get("productId").asLong()));
+        assertEquals(List.of(1L, 3L, 4L, 6L), productIds);
+    }
+
+    @Test
+    @Sql(statements = "CREATE TABLE IF NOT EXISTS PRODUCT(product_id BIGINT PRIMARY KEY, product_name VARCHAR(255), " +
+            "product_description VARCHAR(255), product_type VARCHAR(255), price DOUBLE, quantity BIGINT)", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(statements = "INSERT INTO PRODUCT (product_id, product_name, product_description, product_type, price, quantity) VALUES " +
+                            "(1,'iPhone X','Manufactured by Apple','phone',1499.99,6), " +
+                            "(2,'Galaxy S10','Manufactured by Samsung','phone',1299.99,3), " +
+                            "(3,'Pixel 5','Manufactured by Google','phone',1099.99,4), " +
+                            "(4,'Dell XPS 15','Manufactured by Dell','laptop',1799.99,6), " +
+                            "(5,'HP Envy 13','Manufactured by HP','laptop',1299.99,2), " +
+                            "(6,'Lenovo IdeaCentre 5i Gaming Desktop','Manufactured by Lenovo','desktop',999.99,6)",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(statements = "DROP TABLE PRODUCT", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    public void testDeleteAllProductsInBackground() throws IOException, URISyntaxException, InterruptedException {
+        HttpClient client = HttpClient.newBuilder().build();
+        ObjectMapper objectMapper = new ObjectMapper();
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat(URIConstant.DELETE_ALL)))
+                .DELETE()
+                .build();
+        // product.wipe.background-threshold is 3 in the test profile, so 6 rows are wiped in chunks
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(HttpStatus.ACCEPTED.value(), response.statusCode());
+        assertEquals("CHUNKED", objectMapper.readTree(response.body()).get("mode").asText());
+
+        request = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat(URIConstant.DELETE_ALL_STATUS)))
+                .GET()
+                .build();
+        JsonNode status = objectMapper.readTree(client.send(request, HttpResponse.BodyHandlers.ofString()).body());
+        for (int i = 0; i < 50 && "RUNNING".equals(status.get("state").asText()); i++) {
+            Thread.sleep(100);
+            status = objectMapper.readTree(client.send(request, HttpResponse.BodyHandlers.ofString()).body());
+        }
+        assertEquals("DONE", status.get("state").asText());
+        assertEquals(6, status.get("totalRows").asLong());
+        assertEquals(6, status.get("deletedRows").asLong());
+
+        request = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat(URIConstant.GET)))
+                .GET()
+                .build();
+        assertEquals("[]", client.send(request, HttpResponse.BodyHandlers.ofString()).body());
+    }
+
+    @Test
+    @Sql(statements = "CREATE TABLE IF NOT EXISTS PRODUCT(product_id BIGINT PRIMARY KEY, product_name VARCHAR(255), " +
+            "product_description VARCHAR(255), product_type VARCHAR(255), price DOUBLE, quantity BIGINT)", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(statements = "INSERT INTO PRODUCT (product_id, product_name, product_description, product_type, price, quantity) VALUES " +
+                            "(1,'iPhone X','Manufactured by Apple','phone',1499.99,6), " +
+                            "(2,'Galaxy S10','Manufactured by Samsung','phone',1299.99,3), " +
+                            "(3,'Pixel 5','Manufactured by Google','phone',1099.99,4), " +
+                            "(4,'Dell XPS 15','Manufactured by Dell','laptop',1799.99,6), " +
+                            "(5,'HP Envy 13','Manufactured by HP','laptop',1299.99,2), " +
+                            "(6,'Lenovo IdeaCentre 5i Gaming Desktop','Manufactured by Lenovo','desktop',999.99,6)",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(statements = "DROP TABLE PRODUCT", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    public void testReduceQuantityNeverOversells() throws IOException, URISyntaxException, InterruptedException {
+        HttpClient client = HttpClient.newBuilder().build();
+        ObjectMapper objectMapper = new ObjectMapper();
+        HttpRequest getProduct = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat("/api/product/3")))
+                .GET()
+                .build();
+        // warm the cache so the test also sees it follow the update
+        assertEquals(4, objectMapper.readTree(client.send(getProduct, HttpResponse.BodyHandlers.ofString()).body()).get("quantity").asLong());
+
+        HttpRequest reduce = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat("/product/reduceQuantity/3?quantity=1")))
+                .PUT(HttpRequest.BodyPublishers.noBody())
+                .build();
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            responses.add(client.sendAsync(reduce, HttpResponse.BodyHandlers.ofString()));
+        }
+        long succeeded = responses.stream().map(CompletableFuture::join)
+                .filter(response -> response.statusCode() == HttpStatus.OK.value()).count();
+        long rejected = responses.stream().map(CompletableFuture::join)
+                .filter(response -> response.statusCode() == HttpStatus.CONFLICT.value()).count();
+        assertEquals(4, succeeded);
+        assertEquals(6, rejected);
+        assertEquals(0, objectMapper.readTree(client.send(getProduct, HttpResponse.BodyHandlers.ofString()).body()).get("quantity").asLong());
+
+        HttpRequest missing = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat("/product/reduceQuantity/99?quantity=1")))
+                .PUT(HttpRequest.BodyPublishers.noBody())
+                .build();
+        assertEquals(HttpStatus.NOT_FOUND.value(), client.send(missing, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    @Test
+    @Sql(statements = "CREATE TABLE IF NOT EXISTS PRODUCT(product_id BIGINT PRIMARY KEY, product_name VARCHAR(255), " +
+            "product_description VARCHAR(255), product_type VARCHAR(255), price DOUBLE, quantity BIGINT)", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(statements = "INSERT INTO PRODUCT (product_id, product_name, product_description, product_type, price, quantity) VALUES " +
+                            "(1,'iPhone X','Manufactured by Apple','phone',1499.99,6), " +
+                            "(2,'Galaxy S10','Manufactured by Samsung','phone',1299.99,3), " +
+                            "(3,'Pixel 5','Manufactured by Google','phone',1099.99,4), " +
+                            "(4,'Dell XPS 15','Manufactured by Dell','laptop',1799.99,6), " +
+                            "(5,'HP Envy 13','Manufactured by HP','laptop',1299.99,2), " +
+                            "(6,'Lenovo IdeaCentre 5i Gaming Desktop','Manufactured by Lenovo','desktop',999.99,6)",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(statements = "DROP TABLE PRODUCT", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    public void testPatchProduct() throws IOException, URISyntaxException, InterruptedException {
+        HttpClient client = HttpClient.newBuilder().build();
+        HttpRequest get = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat("/api/product/3")))
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(get, HttpResponse.BodyHandlers.ofString());
+        String etag = response.headers().firstValue("ETag").orElseThrow();
+        assertEquals("\"0\"", etag);
+
+        HttpRequest patch = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat("/api/product/3")))
+                .header("Content-Type" , "application/json")
+                .header("If-Match", etag)
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"price\":1199.99}"))
+                .build();
+        response = client.send(patch, HttpResponse.BodyHandlers.ofString());
+        assertEquals(HttpStatus.OK.value(), response.statusCode());
+        assertEquals("\"1\"", response.headers().firstValue("ETag").orElseThrow());
+        String expected = "{\"productId\":3,\"productName\":\"Pixel 5\",\"productDescription\":\"Manufactured by Google\",\"productType\":\"phone\",\"price\":1199.99,\"quantity\":4}";
+        assertEquals(expected, response.body());
+
+        // a second editor still holding the old ETag loses
+        assertEquals(HttpStatus.CONFLICT.value(), client.send(patch, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        response = client.send(get, HttpResponse.BodyHandlers.ofString());
+        assertEquals(expected, response.body());
+        assertEquals("\"1\"", response.headers().firstValue("ETag").orElseThrow());
+
+        HttpRequest withoutVersion = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat("/api/product/3")))
+                .header("Content-Type" , "application/json")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"quantity\":1}"))
+                .build();
+        assertEquals(HttpStatus.BAD_REQUEST.value(), client.send(withoutVersion, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    private JsonNode getMetric(HttpClient client, ObjectMapper objectMapper, String metric) throws IOException, URISyntaxException, InterruptedException {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat("/actuator/metrics/").concat(metric)))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(HttpStatus.OK.value(), response.statusCode(), metric);
+        return objectMapper.readTree(response.body());
+    }
+
     private String convertObjectToJson(ProductRequest productRequest) throws JsonProcessingException {
         ObjectMapper objectMapper = new ObjectMapper();
         return objectMapper.writeValueAsString(productRequest);
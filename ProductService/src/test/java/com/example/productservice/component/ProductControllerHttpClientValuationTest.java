@@ -0,0 +1,91 @@
+package com.example.productservice.component;
+
+import com.example.productservice.constant.URIConstant;
+import com.example.productservice.valuation.InventoryValuation;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"product.valuation.enabled=true"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@Sql(scripts= "/scripts/schema.sql", executionPhase= Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts= "/scripts/insert.sql", executionPhase= Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts= "/scripts/delete.sql", executionPhase= Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class ProductControllerHttpClientValuationTest {
+    @LocalServerPort
+    private int port;
+
+    private String baseUrl = "http://localhost";
+
+    private final HttpClient client = HttpClient.newBuilder().build();
+
+    @Autowired
+    private InventoryValuation inventoryValuation;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        baseUrl = baseUrl.concat(":").concat(port + "");
+    }
+
+    @Test
+    public void testGetInventoryValuation() throws IOException, URISyntaxException, InterruptedException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        JsonNode valuation = objectMapper.readTree(get(URIConstant.GET_VALUATION));
+        assertEquals(36699.73, valuation.get("total").asDouble());
+        assertEquals(17299.87, valuation.get("byProductType").get("phone").asDouble());
+        assertEquals(13399.92, valuation.get("byProductType").get("laptop").asDouble());
+        assertEquals(5999.94, valuation.get("byProductType").get("desktop").asDouble());
+
+        // deltas from writes made through the service
+        delete("/api/product/5");
+        valuation = objectMapper.readTree(get(URIConstant.GET_VALUATION));
+        assertEquals(34099.75, valuation.get("total").asDouble());
+        assertEquals(10799.94, valuation.get("byProductType").get("laptop").asDouble());
+
+        // a write behind the service's back is only seen after reconciliation
+        jdbcTemplate.update("UPDATE PRODUCT SET quantity = 0 WHERE product_type = 'desktop'");
+        assertEquals(34099.75, objectMapper.readTree(get(URIConstant.GET_VALUATION)).get("total").asDouble());
+        inventoryValuation.reconcile();
+        valuation = objectMapper.readTree(get(URIConstant.GET_VALUATION));
+        assertEquals(28099.81, valuation.get("total").asDouble());
+        assertFalse(valuation.get("byProductType").has("desktop"));
+    }
+
+    private String get(String path) throws IOException, URISyntaxException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat(path)))
+                .GET()
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+
+    private String delete(String path) throws IOException, URISyntaxException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat(path)))
+                .DELETE()
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+}
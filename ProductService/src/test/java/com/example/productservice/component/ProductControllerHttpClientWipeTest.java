@@ -0,0 +1,89 @@
+package com.example.productservice.component;
+
+import com.example.productservice.constant.URIConstant;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+// every listener that loads from the table, so each one is seen to reload after a wipe
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"product.search.index.enabled=true", "product.price.index.enabled=true", "product.valuation.enabled=true", "product.counter.enabled=true"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@Sql(scripts= "/scripts/schema.sql", executionPhase= Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts= "/scripts/insert.sql", executionPhase= Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts= "/scripts/delete.sql", executionPhase= Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class ProductControllerHttpClientWipeTest {
+    @LocalServerPort
+    private int port;
+
+    private String baseUrl = "http://localhost";
+
+    private final HttpClient client = HttpClient.newBuilder().build();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        baseUrl = baseUrl.concat(":").concat(port + "");
+    }
+
+    @Test
+    public void testIndexesReloadAfterWipe() throws IOException, URISyntaxException, InterruptedException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        assertEquals("6", get(URIConstant.COUNT_PRODUCT_BY_PRICE_RANGE + "?minPrice=0&maxPrice=2000"));
+        assertEquals(2, objectMapper.readTree(get(URIConstant.GET_BY_NAME + "?productName=ga")).size());
+        assertEquals("6", get(URIConstant.COUNT));
+
+        // product.wipe.background-threshold is 3 in the test profile, so 6 rows are wiped in chunks
+        delete(URIConstant.DELETE_ALL);
+        JsonNode status = objectMapper.readTree(get(URIConstant.DELETE_ALL_STATUS));
+        for (int i = 0; i < 50 && "RUNNING".equals(status.get("state").asText()); i++) {
+            Thread.sleep(100);
+            status = objectMapper.readTree(get(URIConstant.DELETE_ALL_STATUS));
+        }
+        assertEquals("DONE", status.get("state").asText());
+
+        // a row inserted while the wipe ran survives it and is found once the indexes reload
+        jdbcTemplate.update("INSERT INTO PRODUCT (product_id, product_name, product_type, price, quantity) VALUES (100, 'Moto G', 'phone', 199.99, 1)");
+        assertEquals("1", get(URIConstant.COUNT_PRODUCT_BY_PRICE_RANGE + "?minPrice=0&maxPrice=2000"));
+        JsonNode products = objectMapper.readTree(get(URIConstant.GET_BY_NAME + "?productName=moto"));
+        assertEquals(1, products.size());
+        assertEquals(100, products.get(0).get("productId").asLong());
+        assertEquals("1", get(URIConstant.COUNT));
+        assertEquals(199.99, objectMapper.readTree(get(URIConstant.GET_VALUATION)).get("total").asDouble());
+    }
+
+    private String get(String path) throws IOException, URISyntaxException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat(path)))
+                .GET()
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+
+    private String delete(String path) throws IOException, URISyntaxException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl.concat(path)))
+                .DELETE()
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+}
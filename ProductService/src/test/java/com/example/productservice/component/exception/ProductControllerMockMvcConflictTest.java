@@ -0,0 +1,58 @@
+package com.example.productservice.component.exception;
+
+import com.example.productservice.constant.URIConstant;
+import com.example.productservice.entity.Product;
+import com.example.productservice.model.ProductRequest;
+import com.example.productservice.service.impl.ProductServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// the service is mocked: a lost optimistic-lock race cannot be timed from outside
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ProductControllerMockMvcConflictTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ProductServiceImpl productService;
+
+    @Test
+    public void testEditProductRacingAnotherWrite() throws Exception {
+        //Setup
+        ProductRequest productRequest = new ProductRequest("iPhone X","Manufactured by Apple","phone",1399.99,6);
+
+        //Mock
+        when(productService.editProduct(productRequest, 1)).thenThrow(new ObjectOptimisticLockingFailureException(Product.class, 1L));
+
+        //Create RequestBuilder
+        RequestBuilder requestBuilder = MockMvcRequestBuilders
+                .put(URIConstant.PUT, 1)
+                .content(new ObjectMapper().writeValueAsString(productRequest))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON);
+
+        //Send PUT request
+        ResultActions resultActions = mockMvc.perform(requestBuilder);
+
+        //Validate
+        resultActions.andDo(print())
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("Product has been modified by another request."));
+    }
+}
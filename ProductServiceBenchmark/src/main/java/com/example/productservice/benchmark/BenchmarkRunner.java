@@ -0,0 +1,41 @@
+package com.example.productservice.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Objects;
+
+/**
+ * Entry point of {@code benchmarks.jar}. Takes the usual JMH command line, but unless {@code -rf}/{@code -rff}
+ * say otherwise, results are written as JSON to
+ * {@code jmh-results/product-service-<version>-<timestamp>.json} so runs of different releases can be diffed.
+ */
+public class BenchmarkRunner {
+    private static final String RESULT_DIRECTORY = "jmh-results";
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLineOptions);
+        if (!commandLineOptions.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLineOptions.getResult().hasValue()) {
+            ResultFormatType format = commandLineOptions.getResultFormat().orElse(ResultFormatType.JSON);
+            File directory = new File(RESULT_DIRECTORY);
+            directory.mkdirs();
+            String version = Objects.toString(BenchmarkRunner.class.getPackage().getImplementationVersion(), "dev");
+            options.result(new File(directory, "product-service-" + version + "-" + LocalDateTime.now().format(TIMESTAMP)
+                    + "." + format.toString().toLowerCase()).getPath());
+        }
+        new Runner(options.build()).run();
+    }
+}
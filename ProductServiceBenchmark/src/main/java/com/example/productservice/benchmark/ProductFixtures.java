@@ -0,0 +1,77 @@
+package com.example.productservice.benchmark;
+
+import com.example.productservice.entity.Product;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic catalogue data shaped like the real one: a few product types with their own price
+ * bands, brand + model names, descriptions of a sentence or two and mostly small stock levels.
+ */
+public final class ProductFixtures {
+    private static final String[] TYPES = {"phone", "laptop", "desktop", "tablet", "monitor", "headphones"};
+    private static final double[][] PRICE_BANDS = {{199, 1599}, {499, 3499}, {599, 4999}, {149, 1299}, {99, 1999}, {19, 549}};
+    private static final String[] BRANDS = {"Apple", "Samsung", "Google", "Dell", "HP", "Lenovo", "Asus", "Acer", "Sony", "LG", "Microsoft", "Xiaomi"};
+    private static final String[] MODELS = {"Pro", "Max", "Air", "Ultra", "Plus", "Lite", "Neo", "Edge", "Book", "Studio", "Gaming", "Slim"};
+    private static final String[] FEATURES = {
+            "OLED display", "all-day battery", "fast charging", "aluminium chassis", "noise cancelling",
+            "dual-band Wi-Fi", "backlit keyboard", "120Hz refresh rate", "USB-C power delivery", "fingerprint reader"
+    };
+
+    private static final long SEED = 42L;
+
+    private ProductFixtures() {
+    }
+
+    public static List<Product> products(int count) {
+        Random random = new Random(SEED);
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            products.add(product(random, i));
+        }
+        return products;
+    }
+
+    /**
+     * Inserts {@code count} rows straight into the product table, so seeding large tables does not
+     * go through the persistence context being measured.
+     */
+    public static void seed(JdbcTemplate jdbcTemplate, int count, int batchSize) {
+        List<Product> products = products(count);
+        jdbcTemplate.batchUpdate("INSERT INTO product (product_id, product_name, product_description, product_type, price, quantity, version) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, 0)", products, batchSize,
+                (ps, product) -> {
+                    ps.setLong(1, product.getProductId());
+                    ps.setString(2, product.getProductName());
+                    ps.setString(3, product.getProductDescription());
+                    ps.setString(4, product.getProductType());
+                    ps.setDouble(5, product.getPrice());
+                    ps.setLong(6, product.getQuantity());
+                });
+    }
+
+    private static Product product(Random random, long productId) {
+        int type = random.nextInt(TYPES.length);
+        double[] band = PRICE_BANDS[type];
+        // prices cluster towards the bottom of each band and end in .99
+        double skew = Math.pow(random.nextDouble(), 2);
+        double price = Math.floor(band[0] + skew * (band[1] - band[0])) + 0.99;
+        String brand = BRANDS[random.nextInt(BRANDS.length)];
+        String name = brand + " " + MODELS[random.nextInt(MODELS.length)] + " " + (random.nextInt(20) + 1);
+        String description = name + " " + TYPES[type] + " with " + FEATURES[random.nextInt(FEATURES.length)]
+                + " and " + FEATURES[random.nextInt(FEATURES.length)] + ".";
+        // most products have a handful in stock, a few are sold out or bulk stocked
+        long quantity = random.nextInt(10) == 0 ? random.nextInt(500) : random.nextInt(25);
+        return Product.builder()
+                .productId(productId)
+                .productName(name)
+                .productDescription(description)
+                .productType(TYPES[type])
+                .price(price)
+                .quantity(quantity)
+                .build();
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.productservice.benchmark;
+
+import com.example.productservice.entity.Product;
+import com.example.productservice.model.ProductResponse;
+import com.example.productservice.service.impl.ProductServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.BeanUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to {@link ProductResponse} mapping: the builder-based {@code mapToProductResponse} used by
+ * most of {@link ProductServiceImpl} against the {@code BeanUtils.copyProperties} that
+ * {@code getProductById} uses on a cache miss.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ProductMappingBenchmark {
+    // the real private method, so the benchmark follows the service when the mapping changes
+    private static final MethodHandle MAP_TO_PRODUCT_RESPONSE;
+
+    static {
+        try {
+            MAP_TO_PRODUCT_RESPONSE = MethodHandles.privateLookupIn(ProductServiceImpl.class, MethodHandles.lookup())
+                    .findVirtual(ProductServiceImpl.class, "mapToProductResponse",
+                            MethodType.methodType(ProductResponse.class, Product.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final int PRODUCTS = 1024;
+
+    private final ProductServiceImpl productService = new ProductServiceImpl();
+    private Product[] products;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        List<Product> fixtures = ProductFixtures.products(PRODUCTS);
+        products = fixtures.toArray(new Product[0]);
+    }
+
+    @Benchmark
+    public ProductResponse builderMapping() throws Throwable {
+        return (ProductResponse) MAP_TO_PRODUCT_RESPONSE.invokeExact(productService, nextProduct());
+    }
+
+    @Benchmark
+    public ProductResponse beanUtilsCopyProperties() {
+        ProductResponse productResponse = new ProductResponse();
+        BeanUtils.copyProperties(nextProduct(), productResponse);
+        return productResponse;
+    }
+
+    private Product nextProduct() {
+        // cycling through distinct entities keeps the JIT from specialising on one object
+        Product product = products[next];
+        next = (next + 1) & (PRODUCTS - 1);
+        return product;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.productservice.benchmark;
+
+import com.example.productservice.ProductServiceApplication;
+import com.example.productservice.entity.Product;
+import com.example.productservice.model.ProductResponse;
+import com.example.productservice.repository.ProductRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ProductRepository} queries against an embedded H2 holding {@code rows} products from
+ * {@link ProductFixtures}. H2 numbers are not MySQL numbers; they are meant for comparing one
+ * release of the queries and mappings with the next.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductRepositoryBenchmark {
+    private static final int SEED_BATCH_SIZE = 1000;
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"10000", "100000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private ProductRepository productRepository;
+    private SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ProductServiceApplication.class).run();
+        productRepository = context.getBean(ProductRepository.class);
+        ProductFixtures.seed(context.getBean(JdbcTemplate.class), rows, SEED_BATCH_SIZE);
+        random = new SplittableRandom(7);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Product> findById() {
+        return productRepository.findById(randomProductId());
+    }
+
+    @Benchmark
+    public List<ProductResponse> findProductResponsesAfter() {
+        return productRepository.findProductResponsesAfter(randomProductId(), PageRequest.of(0, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public List<ProductResponse> findProductByPriceBetween() {
+        // a 50-wide band selects roughly 1% of the catalogue
+        double minPrice = 100 + random.nextInt(1000);
+        return productRepository.findProductByPriceBetween(minPrice, minPrice + 50);
+    }
+
+    @Benchmark
+    public long countProductByPriceBetween() {
+        double minPrice = 100 + random.nextInt(1000);
+        return productRepository.countProductByPriceBetween(minPrice, minPrice + 50);
+    }
+
+    @Benchmark
+    public List<ProductResponse> findProductByProductNameContainsIgnoreCase() {
+        return productRepository.findProductByProductNameContainsIgnoreCase("book 1");
+    }
+
+    @Benchmark
+    public List<Object[]> getTotalByProductType() {
+        return productRepository.getTotalByProductType();
+    }
+
+    @Benchmark
+    public List<ProductResponse> findAllProductResponses() {
+        return productRepository.findAllProductResponses();
+    }
+
+    private long randomProductId() {
+        return 1 + random.nextInt(rows);
+    }
+}